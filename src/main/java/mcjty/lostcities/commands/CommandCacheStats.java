@@ -0,0 +1,64 @@
+package mcjty.lostcities.commands;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.mojang.brigadier.Command;
+import com.mojang.brigadier.CommandDispatcher;
+import com.mojang.brigadier.builder.ArgumentBuilder;
+import com.mojang.brigadier.context.CommandContext;
+import com.mojang.brigadier.exceptions.CommandSyntaxException;
+import mcjty.lostcities.varia.ComponentFactory;
+import mcjty.lostcities.varia.PerformanceOptimizer;
+import net.minecraft.ChatFormatting;
+import net.minecraft.commands.CommandSourceStack;
+import net.minecraft.commands.Commands;
+import net.minecraft.network.chat.Component;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+public class CommandCacheStats implements Command<CommandSourceStack> {
+
+    public static final String DUMP_FILE = "lostcities_cachestats.json";
+
+    private static final CommandCacheStats CMD = new CommandCacheStats();
+
+    public static ArgumentBuilder<CommandSourceStack, ?> register(CommandDispatcher<CommandSourceStack> dispatcher) {
+        return Commands.literal("cachestats")
+                .requires(cs -> cs.hasPermission(2))
+                .then(Commands.literal("dump").executes(CommandCacheStats::dump))
+                .then(Commands.literal("reset").executes(CommandCacheStats::reset))
+                .executes(CMD);
+    }
+
+    private static int dump(CommandContext<CommandSourceStack> context) {
+        Gson gson = new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create();
+        String json = gson.toJson(PerformanceOptimizer.getCacheStatsJson());
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(DUMP_FILE, StandardCharsets.UTF_8))) {
+            writer.write(json);
+            context.getSource().sendSuccess(() -> ComponentFactory.literal("Cache statistics written to '" + DUMP_FILE + "'"), false);
+        } catch (IOException e) {
+            context.getSource().sendFailure(Component.literal("Error writing file '" + DUMP_FILE + "'!").withStyle(ChatFormatting.RED));
+        }
+        return 0;
+    }
+
+    private static int reset(CommandContext<CommandSourceStack> context) {
+        PerformanceOptimizer.resetStats();
+        context.getSource().sendSuccess(() -> ComponentFactory.literal("Cache statistics reset"), false);
+        return 0;
+    }
+
+    @Override
+    public int run(CommandContext<CommandSourceStack> context) throws CommandSyntaxException {
+        for (PerformanceOptimizer.LRUCache<?, ?> cache : PerformanceOptimizer.getCaches()) {
+            String line = cache.getStats();
+            context.getSource().sendSuccess(() -> Component.literal(line).withStyle(ChatFormatting.YELLOW), false);
+        }
+        String total = PerformanceOptimizer.getCacheStats();
+        context.getSource().sendSuccess(() -> Component.literal(total).withStyle(ChatFormatting.YELLOW), false);
+        return 0;
+    }
+}
@@ -0,0 +1,78 @@
+package mcjty.lostcities.commands;
+
+import com.mojang.brigadier.Command;
+import com.mojang.brigadier.CommandDispatcher;
+import com.mojang.brigadier.arguments.IntegerArgumentType;
+import com.mojang.brigadier.arguments.StringArgumentType;
+import com.mojang.brigadier.builder.ArgumentBuilder;
+import com.mojang.brigadier.context.CommandContext;
+import com.mojang.brigadier.exceptions.CommandSyntaxException;
+import mcjty.lostcities.LostCities;
+import mcjty.lostcities.setup.Registration;
+import mcjty.lostcities.varia.ComponentFactory;
+import mcjty.lostcities.worldgen.IDimensionInfo;
+import mcjty.lostcities.worldgen.lost.LayoutMap;
+import net.minecraft.ChatFormatting;
+import net.minecraft.commands.CommandSourceStack;
+import net.minecraft.commands.Commands;
+import net.minecraft.network.chat.Component;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerLevel;
+
+import java.io.File;
+import java.util.concurrent.CompletableFuture;
+
+public class CommandExportMap implements Command<CommandSourceStack> {
+
+    private static final CommandExportMap CMD = new CommandExportMap();
+
+    public static ArgumentBuilder<CommandSourceStack, ?> register(CommandDispatcher<CommandSourceStack> dispatcher) {
+        return Commands.literal("exportmap")
+                .requires(cs -> cs.hasPermission(2))
+                .then(Commands.argument("name", StringArgumentType.word())
+                        .then(Commands.argument("minx", IntegerArgumentType.integer())
+                                .then(Commands.argument("minz", IntegerArgumentType.integer())
+                                        .then(Commands.argument("maxx", IntegerArgumentType.integer())
+                                                .then(Commands.argument("maxz", IntegerArgumentType.integer())
+                                                        .executes(CMD))))));
+    }
+
+
+    @Override
+    public int run(CommandContext<CommandSourceStack> context) throws CommandSyntaxException {
+        String filename = context.getArgument("name", String.class);
+        int minX = context.getArgument("minx", Integer.class);
+        int minZ = context.getArgument("minz", Integer.class);
+        int maxX = context.getArgument("maxx", Integer.class);
+        int maxZ = context.getArgument("maxz", Integer.class);
+        CommandSourceStack source = context.getSource();
+
+        ServerLevel level = source.getLevel();
+        IDimensionInfo dimInfo = Registration.LOSTCITY_FEATURE.get().getDimensionInfo(level);
+        if (dimInfo == null) {
+            source.sendFailure(ComponentFactory.literal("This dimension doesn't support Lost Cities!"));
+            return 0;
+        }
+        if (maxX < minX || maxZ < minZ || maxX - minX >= LayoutMap.MAX_SIZE || maxZ - minZ >= LayoutMap.MAX_SIZE) {
+            source.sendFailure(ComponentFactory.literal("Invalid area! At most " + LayoutMap.MAX_SIZE + " chunks in every direction"));
+            return 0;
+        }
+
+        File file = new File(filename.endsWith(".png") ? filename : filename + ".png");
+        MinecraftServer server = source.getServer();
+        source.sendSuccess(() -> ComponentFactory.literal("Rendering " + (maxX - minX + 1) + "x" + (maxZ - minZ + 1) + " chunks..."), false);
+        long start = System.currentTimeMillis();
+        CompletableFuture.runAsync(() -> {
+            try {
+                // Single threaded so that the export does not compete with worldgen for the layout caches
+                LayoutMap.write(LayoutMap.render(dimInfo, minX, minZ, maxX, maxZ, 1, 1), file);
+                long time = System.currentTimeMillis() - start;
+                server.execute(() -> source.sendSuccess(() -> ComponentFactory.literal("Exported map to '" + file.getPath() + "' in " + time + "ms"), false));
+            } catch (Exception e) {
+                LostCities.getLogger().error("Error exporting map to '{}'!", file.getPath(), e);
+                server.execute(() -> source.sendFailure(Component.literal("Error writing file '" + file.getPath() + "'!").withStyle(ChatFormatting.RED)));
+            }
+        });
+        return 0;
+    }
+}
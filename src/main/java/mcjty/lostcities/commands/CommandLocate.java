@@ -10,56 +10,94 @@ import mcjty.lostcities.varia.ChunkCoord;
 import mcjty.lostcities.varia.ComponentFactory;
 import mcjty.lostcities.worldgen.IDimensionInfo;
 import mcjty.lostcities.worldgen.lost.BuildingInfo;
+import mcjty.lostcities.worldgen.lost.LocateIndex;
 import net.minecraft.commands.CommandSourceStack;
 import net.minecraft.commands.Commands;
 import net.minecraft.commands.arguments.ResourceLocationArgument;
-import net.minecraft.core.BlockPos;
-import net.minecraft.core.Direction;
 import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.level.ServerLevel;
 import net.minecraft.server.level.ServerPlayer;
 import net.minecraft.world.level.ChunkPos;
 
+import java.util.List;
+
 public class CommandLocate implements Command<CommandSourceStack> {
 
     private static final CommandLocate CMD = new CommandLocate();
 
+    public static final int RADIUS = 30;
+
     public static ArgumentBuilder<CommandSourceStack, ?> register(CommandDispatcher<CommandSourceStack> dispatcher) {
         return Commands.literal("locate")
                 .requires(cs -> cs.hasPermission(1))
+                .then(Commands.literal("cancel").executes(CommandLocate::cancel))
                 .then(Commands.argument("name", ResourceLocationArgument.id()).suggests(
                         ModCommands.getBuildingSuggestionProvider()
                 ).executes(CMD));
     }
 
+    private static int cancel(CommandContext<CommandSourceStack> context) throws CommandSyntaxException {
+        ServerPlayer player = context.getSource().getPlayerOrException();
+        if (LocateIndex.cancelSearch(player.getUUID())) {
+            context.getSource().sendSuccess(() -> ComponentFactory.literal("Locate cancelled"), false);
+        } else {
+            context.getSource().sendFailure(ComponentFactory.literal("There is no locate running!"));
+        }
+        return 0;
+    }
 
     @Override
     public int run(CommandContext<CommandSourceStack> context) throws CommandSyntaxException {
         ResourceLocation name = context.getArgument("name", ResourceLocation.class);
+        CommandSourceStack source = context.getSource();
 
-        ServerPlayer player = context.getSource().getPlayerOrException();
-        BlockPos start = player.blockPosition();
-
+        ServerPlayer player = source.getPlayerOrException();
         ServerLevel level = (ServerLevel) player.level();
         IDimensionInfo dimInfo = Registration.LOSTCITY_FEATURE.get().getDimensionInfo(level);
         if (dimInfo == null) {
-            context.getSource().sendFailure(ComponentFactory.literal("This dimension doesn't support Lost Cities!"));
+            source.sendFailure(ComponentFactory.literal("This dimension doesn't support Lost Cities!"));
             return 0;
         }
 
-        ChunkPos cp = new ChunkPos(start);
-        // Abuse BlockPos as ChunkPos
+        ChunkPos cp = new ChunkPos(player.blockPosition());
+        ChunkCoord center = new ChunkCoord(level.dimension(), cp.x, cp.z);
+        LocateIndex index = LocateIndex.get(level.dimension());
+        if (index.isScanned(center, RADIUS)) {
+            report(source, index, name, center, dimInfo);
+            return 0;
+        }
+
+        source.sendSuccess(() -> ComponentFactory.literal("Searching for " + name + "..."), false);
+        MinecraftServer server = level.getServer();
+        LocateIndex.startSearch(player.getUUID(), name, center, RADIUS, dimInfo,
+                percentage -> server.execute(() -> source.sendSuccess(() -> ComponentFactory.literal("Searching: " + percentage + "%"), false)),
+                search -> server.execute(() -> {
+                    if (search.isCancelled()) {
+                        return;
+                    }
+                    report(source, index, name, center, dimInfo);
+                }));
+        return 0;
+    }
+
+    // Candidates from the index only come from chunk characteristics. Verify the closest ones
+    // with the real building info (on the server thread) before reporting them
+    private static void report(CommandSourceStack source, LocateIndex index, ResourceLocation name, ChunkCoord center, IDimensionInfo dimInfo) {
+        List<ChunkCoord> candidates = index.findBuildings(name, center, RADIUS);
         int cnt = 0;
-        for (BlockPos.MutableBlockPos mpos : BlockPos.spiralAround(new BlockPos(cp.x, 0, cp.z), 30, Direction.EAST, Direction.SOUTH)) {
-            BuildingInfo info = BuildingInfo.getBuildingInfo(new ChunkCoord(level.dimension(), mpos.getX(), mpos.getZ()), dimInfo);
+        for (ChunkCoord coord : candidates) {
+            BuildingInfo info = BuildingInfo.getBuildingInfo(coord, dimInfo);
             if (info != null && info.hasBuilding && info.getBuilding().getId().equals(name)) {
-                context.getSource().sendSuccess(() -> ComponentFactory.literal("Found at " + ((mpos.getX() << 4) + 8) + "," + info.groundLevel + "," + ((mpos.getZ() << 4) + 8)), false);
+                source.sendSuccess(() -> ComponentFactory.literal("Found at " + ((coord.chunkX() << 4) + 8) + "," + info.groundLevel + "," + ((coord.chunkZ() << 4) + 8)), false);
                 cnt++;
-                if (cnt > 6) {
+                if (cnt >= LocateIndex.MAX_RESULTS) {
                     break;
                 }
             }
         }
-        return 0;
+        if (cnt == 0) {
+            source.sendFailure(ComponentFactory.literal("Could not find " + name + " nearby!"));
+        }
     }
 }
@@ -10,6 +10,7 @@ import mcjty.lostcities.setup.Registration;
 import mcjty.lostcities.varia.ChunkCoord;
 import mcjty.lostcities.varia.ComponentFactory;
 import mcjty.lostcities.worldgen.IDimensionInfo;
+import mcjty.lostcities.worldgen.lost.LocateIndex;
 import net.minecraft.commands.CommandSourceStack;
 import net.minecraft.commands.Commands;
 import net.minecraft.commands.arguments.ResourceLocationArgument;
@@ -54,6 +55,16 @@ public class CommandLocatePart implements Command<CommandSourceStack> {
         }
 
         ChunkPos cp = new ChunkPos(start);
+
+        // Parts of chunks that were generated in this session are indexed
+        List<BlockPos> indexed = LocateIndex.get(level.dimension()).findParts(name, new ChunkCoord(level.dimension(), cp.x, cp.z), 30);
+        if (!indexed.isEmpty()) {
+            for (BlockPos pos : indexed.subList(0, Math.min(indexed.size(), LocateIndex.MAX_RESULTS))) {
+                context.getSource().sendSuccess(() -> ComponentFactory.literal("Found at " + pos.getX() + "," + pos.getY() + "," + pos.getZ()), false);
+            }
+            return 0;
+        }
+
         // Abuse BlockPos as ChunkPos
         int cnt = 0;
         for (BlockPos.MutableBlockPos mpos : BlockPos.spiralAround(new BlockPos(cp.x, 0, cp.z), 30, Direction.EAST, Direction.SOUTH)) {
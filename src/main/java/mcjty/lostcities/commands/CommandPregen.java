@@ -0,0 +1,68 @@
+package mcjty.lostcities.commands;
+
+import com.mojang.brigadier.Command;
+import com.mojang.brigadier.CommandDispatcher;
+import com.mojang.brigadier.arguments.IntegerArgumentType;
+import com.mojang.brigadier.builder.ArgumentBuilder;
+import com.mojang.brigadier.context.CommandContext;
+import com.mojang.brigadier.exceptions.CommandSyntaxException;
+import mcjty.lostcities.setup.Registration;
+import mcjty.lostcities.varia.ComponentFactory;
+import mcjty.lostcities.worldgen.Pregenerator;
+import net.minecraft.ChatFormatting;
+import net.minecraft.commands.CommandSourceStack;
+import net.minecraft.commands.Commands;
+import net.minecraft.core.BlockPos;
+import net.minecraft.network.chat.Component;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.ChunkPos;
+
+import java.util.List;
+
+public class CommandPregen implements Command<CommandSourceStack> {
+
+    private static final CommandPregen CMD = new CommandPregen();
+
+    public static ArgumentBuilder<CommandSourceStack, ?> register(CommandDispatcher<CommandSourceStack> dispatcher) {
+        return Commands.literal("pregen")
+                .requires(cs -> cs.hasPermission(2))
+                .then(Commands.literal("stop").executes(CommandPregen::stop))
+                .then(Commands.literal("status").executes(CommandPregen::status))
+                .then(Commands.argument("radius", IntegerArgumentType.integer(1, 512)).executes(CMD));
+    }
+
+    private static int stop(CommandContext<CommandSourceStack> context) {
+        if (Pregenerator.stop(context.getSource().getLevel())) {
+            context.getSource().sendSuccess(() -> ComponentFactory.literal("Pregeneration stopped"), false);
+        } else {
+            context.getSource().sendFailure(ComponentFactory.literal("There is no pregeneration running in this dimension!"));
+        }
+        return 0;
+    }
+
+    private static int status(CommandContext<CommandSourceStack> context) {
+        List<String> status = Pregenerator.getStatus(context.getSource().getLevel());
+        if (status.isEmpty()) {
+            context.getSource().sendFailure(ComponentFactory.literal("There is no pregeneration running in this dimension!"));
+        }
+        for (String line : status) {
+            context.getSource().sendSuccess(() -> Component.literal(line).withStyle(ChatFormatting.YELLOW), false);
+        }
+        return 0;
+    }
+
+    @Override
+    public int run(CommandContext<CommandSourceStack> context) throws CommandSyntaxException {
+        int radius = context.getArgument("radius", Integer.class);
+        ServerLevel level = context.getSource().getLevel();
+        if (Registration.LOSTCITY_FEATURE.get().getDimensionInfo(level) == null) {
+            context.getSource().sendFailure(ComponentFactory.literal("This dimension doesn't support Lost Cities!"));
+            return 0;
+        }
+        ChunkPos center = new ChunkPos(BlockPos.containing(context.getSource().getPosition()));
+        Pregenerator.start(level, center, radius);
+        int total = (radius * 2 + 1) * (radius * 2 + 1);
+        context.getSource().sendSuccess(() -> ComponentFactory.literal("Pregenerating " + total + " chunks. Use '/lostcities pregen status' to follow the progress"), false);
+        return 0;
+    }
+}
@@ -24,7 +24,9 @@ public class ModCommands {
                         .then(CommandCreateBuilding.register(dispatcher))
                         .then(CommandDebug.register(dispatcher))
                         .then(CommandStats.register(dispatcher))
+                        .then(CommandCacheStats.register(dispatcher))
                         .then(CommandMap.register(dispatcher))
+                        .then(CommandExportMap.register(dispatcher))
                         .then(CommandSaveProfile.register(dispatcher))
                         .then(CommandCreatePart.register(dispatcher))
                         .then(CommandLocatePart.register(dispatcher))
@@ -34,6 +36,7 @@ public class ModCommands {
                         .then(CommandListParts.register(dispatcher))
                         .then(CommandExportPart.register(dispatcher))
                         .then(CommandTestFill.register(dispatcher))
+                        .then(CommandPregen.register(dispatcher))
         );
 
         dispatcher.register(Commands.literal("lost").redirect(commands));
@@ -20,7 +20,7 @@ public class ProfileSetup {
 
     public static final Map<String, LostCityProfile> STANDARD_PROFILES = new HashMap<>();
 
-    private static void initStandardProfiles() {
+    public static void initStandardProfiles() {
         LostCityProfile profile;
 
 //        profile = new LostCityProfile("customized", false);
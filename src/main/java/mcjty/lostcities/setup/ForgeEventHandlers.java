@@ -5,13 +5,18 @@ import mcjty.lostcities.commands.ModCommands;
 import mcjty.lostcities.config.LostCityProfile;
 import mcjty.lostcities.playerdata.PlayerProperties;
 import mcjty.lostcities.playerdata.PropertiesDispatcher;
+import mcjty.lostcities.varia.AdaptivePerformanceManager;
 import mcjty.lostcities.varia.ChunkCoord;
+import mcjty.lostcities.varia.ChunkGenOptimizer;
 import mcjty.lostcities.varia.ComponentFactory;
 import mcjty.lostcities.varia.CustomTeleporter;
 import mcjty.lostcities.varia.WorldTools;
 import mcjty.lostcities.worldgen.GlobalTodo;
 import mcjty.lostcities.worldgen.IDimensionInfo;
+import mcjty.lostcities.worldgen.Pregenerator;
+import mcjty.lostcities.worldgen.gen.Scattered;
 import mcjty.lostcities.worldgen.lost.*;
+import mcjty.lostcities.worldgen.lost.cityassets.AssetLifecycle;
 import mcjty.lostcities.worldgen.lost.cityassets.AssetRegistries;
 import mcjty.lostcities.worldgen.lost.cityassets.BuildingPart;
 import mcjty.lostcities.worldgen.lost.cityassets.PredefinedCity;
@@ -35,6 +40,7 @@ import net.minecraft.world.level.block.Blocks;
 import net.minecraft.world.level.block.state.BlockState;
 import net.minecraft.world.level.storage.ServerLevelData;
 import net.minecraftforge.event.AttachCapabilitiesEvent;
+import net.minecraftforge.event.OnDatapackSyncEvent;
 import net.minecraftforge.event.RegisterCommandsEvent;
 import net.minecraftforge.event.TickEvent;
 import net.minecraftforge.event.entity.player.PlayerEvent;
@@ -101,8 +107,16 @@ public class ForgeEventHandlers {
     @SubscribeEvent
     public void onWorldTick(TickEvent.LevelTickEvent event) {
         if (event.phase == TickEvent.Phase.END && event.level instanceof ServerLevel serverLevel) {
-            AssetRegistries.load(serverLevel);
             GlobalTodo.get(event.level).executeAndClearTodo(serverLevel);
+            Pregenerator.tick(serverLevel);
+            ChunkGenOptimizer.tick(serverLevel);
+        }
+    }
+
+    @SubscribeEvent
+    public void onServerTick(TickEvent.ServerTickEvent event) {
+        if (event.phase == TickEvent.Phase.END) {
+            AdaptivePerformanceManager.update(event.getServer());
         }
     }
 
@@ -111,21 +125,49 @@ public class ForgeEventHandlers {
         cleanUp();
     }
 
+    @SubscribeEvent
+    public void onLevelLoad(LevelEvent.Load event) {
+        if (event.getLevel() instanceof ServerLevel serverLevel && serverLevel.dimension() == Level.OVERWORLD) {
+            AssetLifecycle.onServerStarting(serverLevel);
+        }
+    }
+
+    @SubscribeEvent
+    public void onDatapackSync(OnDatapackSyncEvent event) {
+        // A null player means that this is a reload and not a player joining
+        if (event.getPlayer() == null) {
+            AssetLifecycle.onDatapackReload(event.getPlayerList().getServer().overworld());
+        }
+    }
+
     @SubscribeEvent
     public void onServerStopping(ServerStoppingEvent event) {
         cleanUp();
         Config.reset();
+        AdaptivePerformanceManager.reset();
     }
 
     public static void cleanUp() {
         Config.resetProfileCache();
-        BuildingInfo.cleanCache();
-        MultiChunk.cleanCache();
+        cleanAssetCaches();
         Highway.cleanCache();
         Railway.cleanCache();
         BiomeInfo.cleanCache();
+        StructureIndex.cleanCache();
+        LocateIndex.cleanCache();
+        Pregenerator.cleanCache();
+        ChunkGenOptimizer.cleanup();
+    }
+
+    /**
+     * Clean only the caches that hold on to assets. This is safe to do while chunks are generating
+     */
+    public static void cleanAssetCaches() {
+        BuildingInfo.cleanCache();
+        MultiChunk.cleanCache();
         City.cleanCache();
         CitySphere.cleanCache();
+        Scattered.cleanCache();
     }
 
     @SubscribeEvent
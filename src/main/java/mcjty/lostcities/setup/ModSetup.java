@@ -4,6 +4,7 @@ import mcjty.lostcities.api.ILostCityProfileSetup;
 import mcjty.lostcities.compat.LootrCompat;
 import mcjty.lostcities.config.ProfileSetup;
 import mcjty.lostcities.network.PacketHandler;
+import mcjty.lostcities.varia.BlockEntityTypeIndex;
 import mcjty.lostcities.worldgen.lost.cityassets.AssetRegistries;
 import net.minecraftforge.common.MinecraftForge;
 import net.minecraftforge.fml.event.lifecycle.FMLCommonSetupEvent;
@@ -41,6 +42,8 @@ public class ModSetup {
 //        LootTableList.register(new ResourceLocation(LostCities.MODID, "chests/raildungeonchest"));
 
         AssetRegistries.reset();
+        // All registration is done at this point
+        e.enqueueWork(BlockEntityTypeIndex::build);
         
         // Log Lootr integration status
         LootrCompat.logStatus();
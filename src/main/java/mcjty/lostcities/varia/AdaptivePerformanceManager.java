@@ -1,274 +1,163 @@
 package mcjty.lostcities.varia;
 
-import net.minecraft.server.level.ServerLevel;
-import net.minecraft.server.level.ServerPlayer;
-import net.minecraft.world.level.ChunkPos;
+import net.minecraft.server.MinecraftServer;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Adaptive Performance Manager - Inspired by Dynamic FPS
- * 
- * Dynamically adjusts worldgen performance based on server state:
- * - Reduces chunk generation priority when no players nearby
- * - Scales processing based on server TPS
- * - Skips unnecessary calculations when chunks aren't visible
- * - Monitors server load and adjusts accordingly
- * 
- * Similar to how Dynamic FPS reduces client resources when idle,
- * this reduces server worldgen resources when appropriate.
+ *
+ * Governs deferrable Lost Cities work based on the measured server tick time (MSPT):
+ * - Throughput of the GlobalTodo queue (block entity and POI updates that are done after generation)
+ * - Apocalypse entity processing (zombie mechanics and spawning)
+ * - Background pregeneration
+ *
+ * The governor never influences chunk generation itself. Everything that is throttled here is
+ * work that is only postponed, so the blocks that are generated for a given seed are always
+ * the same regardless of the server load.
+ *
+ * Mode changes use hysteresis: a mode is entered when the MSPT rises above its 'enter'
+ * threshold and only left when the MSPT drops below the (lower) 'exit' threshold. In addition
+ * a mode is kept for a minimum number of ticks so that it doesn't flap on a single slow tick.
  */
 public class AdaptivePerformanceManager {
     private static final Logger LOGGER = LogManager.getLogger();
-    
+
     // Performance states
     public enum PerformanceMode {
-        FULL_SPEED,      // Normal operation (players actively exploring)
-        REDUCED,         // Reduced processing (players idle/far away)
-        MINIMAL,         // Minimal processing (no players nearby)
-        BATTERY_SAVE     // Ultra-low processing (server under load)
-    }
-    
-    // Configuration
-    private static final int PLAYER_ACTIVITY_CHECK_RADIUS = 256; // blocks
-    private static final long IDLE_THRESHOLD_MS = 60000; // 1 minute
-    private static final long CHUNK_IDLE_THRESHOLD_MS = 30000; // 30 seconds
-    private static final double LOW_TPS_THRESHOLD = 15.0;
-    private static final double CRITICAL_TPS_THRESHOLD = 10.0;
-    
-    // State tracking
-    private static PerformanceMode currentMode = PerformanceMode.FULL_SPEED;
-    private static final AtomicLong lastPlayerActivity = new AtomicLong(System.currentTimeMillis());
-    private static final AtomicBoolean serverUnderLoad = new AtomicBoolean(false);
-    
-    // Statistics
-    private static final AtomicLong chunksSkipped = new AtomicLong(0);
-    private static final AtomicLong calculationsReduced = new AtomicLong(0);
-    
-    /**
-     * Check if a chunk should be generated based on performance mode
-     */
-    public static boolean shouldGenerateChunk(ChunkPos pos, ServerLevel level) {
-        updatePerformanceMode(level);
-        
-        switch (currentMode) {
-            case FULL_SPEED:
-                return true;
-                
-            case REDUCED:
-                // Generate only chunks within render distance of players
-                if (!hasNearbyPlayers(pos, level, 16)) {
-                    chunksSkipped.incrementAndGet();
-                    return false;
-                }
-                return true;
-                
-            case MINIMAL:
-                // Generate only chunks very close to players
-                if (!hasNearbyPlayers(pos, level, 8)) {
-                    chunksSkipped.incrementAndGet();
-                    return false;
-                }
-                return true;
-                
-            case BATTERY_SAVE:
-                // Generate only chunks immediately around players
-                if (!hasNearbyPlayers(pos, level, 4)) {
-                    chunksSkipped.incrementAndGet();
-                    return false;
-                }
-                return true;
-                
-            default:
-                return true;
+        FULL_SPEED(0.0f, 0.0f, 1.0f, 1),        // Normal operation
+        REDUCED(40.0f, 32.0f, 0.5f, 2),         // Server is getting busy
+        MINIMAL(50.0f, 44.0f, 0.25f, 4),        // Server can't keep up with 20 TPS
+        BATTERY_SAVE(70.0f, 60.0f, 0.1f, 8);    // Server is heavily overloaded
+
+        private final float enterMspt;
+        private final float exitMspt;
+        private final float todoFactor;
+        private final int entityTickInterval;
+
+        PerformanceMode(float enterMspt, float exitMspt, float todoFactor, int entityTickInterval) {
+            this.enterMspt = enterMspt;
+            this.exitMspt = exitMspt;
+            this.todoFactor = todoFactor;
+            this.entityTickInterval = entityTickInterval;
         }
     }
-    
+
+    // Minimum number of ticks a mode is kept before another change is possible
+    private static final int MIN_TICKS_IN_MODE = 40;
+
+    // State tracking (only modified from the server thread)
+    private static volatile PerformanceMode currentMode = PerformanceMode.FULL_SPEED;
+    private static volatile float measuredMspt = 0.0f;
+    private static int ticksInMode = 0;
+
+    // Statistics
+    private static final AtomicLong modeChanges = new AtomicLong(0);
+    private static final AtomicLong todosDeferred = new AtomicLong(0);
+
     /**
-     * Check if expensive calculations should be performed
+     * Measure the server tick time and update the performance mode. Call this once every server tick
      */
-    public static boolean shouldPerformExpensiveCalculation() {
-        switch (currentMode) {
-            case FULL_SPEED:
-                return true;
-            case REDUCED:
-                // 75% of calculations
-                if (Math.random() > 0.75) {
-                    calculationsReduced.incrementAndGet();
-                    return false;
-                }
-                return true;
-            case MINIMAL:
-                // 50% of calculations
-                if (Math.random() > 0.5) {
-                    calculationsReduced.incrementAndGet();
-                    return false;
-                }
-                return true;
-            case BATTERY_SAVE:
-                // 25% of calculations
-                if (Math.random() > 0.25) {
-                    calculationsReduced.incrementAndGet();
-                    return false;
-                }
-                return true;
-            default:
-                return true;
+    public static void update(MinecraftServer server) {
+        measuredMspt = server.getAverageTickTime();
+        ticksInMode++;
+        if (ticksInMode < MIN_TICKS_IN_MODE) {
+            return;
         }
-    }
-    
-    /**
-     * Get detail level for building generation
-     */
-    public static int getBuildingDetailLevel() {
-        switch (currentMode) {
-            case FULL_SPEED:
-                return 100; // Full detail
-            case REDUCED:
-                return 75;  // Reduced detail
-            case MINIMAL:
-                return 50;  // Minimal detail
-            case BATTERY_SAVE:
-                return 25;  // Ultra-low detail
-            default:
-                return 100;
+
+        PerformanceMode newMode = currentMode;
+        PerformanceMode[] modes = PerformanceMode.values();
+        // Go up as long as the MSPT is above the 'enter' threshold of the next mode
+        while (newMode.ordinal() < modes.length - 1 && measuredMspt > modes[newMode.ordinal() + 1].enterMspt) {
+            newMode = modes[newMode.ordinal() + 1];
         }
-    }
-    
-    /**
-     * Check if there are players near a chunk
-     */
-    private static boolean hasNearbyPlayers(ChunkPos pos, ServerLevel level, int chunkRadius) {
-        int centerX = pos.x * 16 + 8;
-        int centerZ = pos.z * 16 + 8;
-        int radiusBlocks = chunkRadius * 16;
-        
-        for (ServerPlayer player : level.players()) {
-            double dx = player.getX() - centerX;
-            double dz = player.getZ() - centerZ;
-            double distSq = dx * dx + dz * dz;
-            
-            if (distSq < radiusBlocks * radiusBlocks) {
-                lastPlayerActivity.set(System.currentTimeMillis());
-                return true;
+        // Go down as long as the MSPT is below the 'exit' threshold of the current mode
+        if (newMode == currentMode) {
+            while (newMode.ordinal() > 0 && measuredMspt < newMode.exitMspt) {
+                newMode = modes[newMode.ordinal() - 1];
             }
         }
-        
-        return false;
+
+        if (newMode != currentMode) {
+            LOGGER.debug("Lost Cities performance mode {} -> {} (MSPT {})", currentMode, newMode, measuredMspt);
+            currentMode = newMode;
+            ticksInMode = 0;
+            modeChanges.incrementAndGet();
+        }
     }
-    
+
     /**
-     * Update performance mode based on server state
+     * Scale the number of todo items that can be executed in a single tick
      */
-    private static void updatePerformanceMode(ServerLevel level) {
-        long now = System.currentTimeMillis();
-        long timeSinceActivity = now - lastPlayerActivity.get();
-        
-        // Check server TPS
-        double tps = getServerTPS(level);
-        
-        // Determine mode
-        if (tps < CRITICAL_TPS_THRESHOLD) {
-            // Server critically overloaded
-            currentMode = PerformanceMode.BATTERY_SAVE;
-            serverUnderLoad.set(true);
-        } else if (tps < LOW_TPS_THRESHOLD) {
-            // Server under moderate load
-            currentMode = PerformanceMode.MINIMAL;
-            serverUnderLoad.set(true);
-        } else if (timeSinceActivity > IDLE_THRESHOLD_MS) {
-            // Players idle/away
-            currentMode = PerformanceMode.MINIMAL;
-            serverUnderLoad.set(false);
-        } else if (timeSinceActivity > CHUNK_IDLE_THRESHOLD_MS) {
-            // Players not actively exploring
-            currentMode = PerformanceMode.REDUCED;
-            serverUnderLoad.set(false);
-        } else {
-            // Normal operation
-            currentMode = PerformanceMode.FULL_SPEED;
-            serverUnderLoad.set(false);
+    public static int getTodoBudget(int configured) {
+        int budget = Math.max(1, (int) (configured * currentMode.todoFactor));
+        if (budget < configured) {
+            todosDeferred.addAndGet(configured - budget);
         }
+        return budget;
     }
-    
+
     /**
-     * Get approximate server TPS
+     * Apocalypse entity processing only runs every 'n' ticks
      */
-    private static double getServerTPS(ServerLevel level) {
-        try {
-            // Get average tick time from server
-            long[] tickTimes = level.getServer().tickTimes;
-            if (tickTimes == null || tickTimes.length == 0) {
-                return 20.0;
-            }
-            
-            // Calculate average tick time
-            long sum = 0;
-            for (long tickTime : tickTimes) {
-                sum += tickTime;
-            }
-            long avgTickTime = sum / tickTimes.length;
-            
-            // Convert to TPS (nanoseconds to TPS)
-            double avgTickMs = avgTickTime / 1_000_000.0;
-            double tps = 1000.0 / Math.max(avgTickMs, 50.0);
-            
-            return Math.min(tps, 20.0);
-        } catch (Exception e) {
-            // Fallback to 20 TPS if we can't read server state
-            return 20.0;
-        }
+    public static int getEntityTickInterval() {
+        return currentMode.entityTickInterval;
     }
-    
+
     /**
-     * Notify that a player performed an action
+     * Check if optional background work (like pregeneration) is allowed
      */
-    public static void notifyPlayerActivity() {
-        lastPlayerActivity.set(System.currentTimeMillis());
+    public static boolean allowsBackgroundWork() {
+        return currentMode == PerformanceMode.FULL_SPEED;
     }
-    
+
     /**
      * Check if server is under load
      */
     public static boolean isServerUnderLoad() {
-        return serverUnderLoad.get();
+        return currentMode != PerformanceMode.FULL_SPEED;
     }
-    
+
     /**
      * Get current performance mode
      */
     public static PerformanceMode getCurrentMode() {
         return currentMode;
     }
-    
+
     /**
      * Get performance statistics
      */
     public static String getStats() {
-        long now = System.currentTimeMillis();
-        long timeSinceActivity = now - lastPlayerActivity.get();
-        
         return String.format(
-            "Adaptive Performance - Mode: %s, Time Since Activity: %.1fs, Chunks Skipped: %d, Calculations Reduced: %d, Under Load: %s",
+            "Adaptive Performance - Mode: %s, MSPT: %.1f, Mode Changes: %d, Todos Deferred: %d",
             currentMode,
-            timeSinceActivity / 1000.0,
-            chunksSkipped.get(),
-            calculationsReduced.get(),
-            serverUnderLoad.get()
+            measuredMspt,
+            modeChanges.get(),
+            todosDeferred.get()
         );
     }
-    
+
     /**
      * Reset statistics
      */
     public static void resetStats() {
-        chunksSkipped.set(0);
-        calculationsReduced.set(0);
+        modeChanges.set(0);
+        todosDeferred.set(0);
     }
-    
+
+    /**
+     * Go back to full speed (when the server stops)
+     */
+    public static void reset() {
+        currentMode = PerformanceMode.FULL_SPEED;
+        measuredMspt = 0.0f;
+        ticksInMode = 0;
+        resetStats();
+    }
+
     /**
      * Log current status
      */
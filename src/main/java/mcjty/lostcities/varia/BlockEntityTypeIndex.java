@@ -0,0 +1,51 @@
+package mcjty.lostcities.varia;
+
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.entity.BlockEntityType;
+import net.minecraftforge.registries.ForgeRegistries;
+
+import javax.annotation.Nullable;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable index from a block to the block entity type for that block (and the registry name of
+ * that type). This is built once after registration is done (in common setup) so that worldgen
+ * threads can look up types without iterating the registry or sharing a mutable cache. If a block
+ * is valid for more than one type the first type in registry order wins
+ */
+public class BlockEntityTypeIndex {
+
+    public record Entry(BlockEntityType<?> type, String id) {
+    }
+
+    private static volatile Map<Block, Entry> index = null;
+
+    public static void build() {
+        Map<Block, Entry> map = new HashMap<>();
+        for (BlockEntityType<?> type : ForgeRegistries.BLOCK_ENTITY_TYPES.getValues()) {
+            String id = ForgeRegistries.BLOCK_ENTITY_TYPES.getKey(type).toString();
+            for (Block block : ForgeRegistries.BLOCKS.getValues()) {
+                if (!map.containsKey(block) && type.isValid(block.defaultBlockState())) {
+                    map.put(block, new Entry(type, id));
+                }
+            }
+        }
+        index = Map.copyOf(map);
+    }
+
+    @Nullable
+    public static Entry get(Block block) {
+        Map<Block, Entry> i = index;
+        if (i == null) {
+            // Only if something needs a type before common setup
+            synchronized (BlockEntityTypeIndex.class) {
+                if (index == null) {
+                    build();
+                }
+                i = index;
+            }
+        }
+        return i.get(block);
+    }
+}
@@ -1,8 +1,17 @@
 package mcjty.lostcities.varia;
 
+import mcjty.lostcities.setup.Registration;
+import mcjty.lostcities.worldgen.IDimensionInfo;
+import mcjty.lostcities.worldgen.lost.BuildingInfo;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.phys.Vec3;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -10,27 +19,45 @@ import java.util.concurrent.atomic.AtomicInteger;
  * Chunk generation optimization utilities inspired by C2ME (Concurrent Chunk Management Engine)
  * 
  * Key optimizations:
- * - Parallel chunk generation using ForkJoinPool
+ * - Prefetching of chunk characteristics, heightmaps and BuildingInfo on background threads
+ *   for the chunks that players are moving towards, so that chunk generation finds warm caches
  * - Biome lookup caching to reduce redundant calculations
  * - Object pooling to reduce allocations
  * - Fast math operations for noise/terrain generation
- * - Task prioritization for better chunk loading order
+ * - Task prioritization by player distance for better prefetch order
  */
 public class ChunkGenOptimizer {
     private static final Logger LOGGER = LogManager.getLogger();
     
-    // Threading configuration
-    private static final int THREAD_POOL_SIZE = Math.max(2, Runtime.getRuntime().availableProcessors() - 1);
-    private static final ForkJoinPool CHUNK_GEN_POOL = new ForkJoinPool(
-        THREAD_POOL_SIZE,
-        ForkJoinPool.defaultForkJoinWorkerThreadFactory,
-        null,
-        true // Async mode for better throughput
-    );
-    
+    // Threading configuration. Characteristics and BuildingInfo are calculated under a global lock
+    // so more threads would only be waiting on each other
+    private static final int THREAD_POOL_SIZE = 2;
+
+    // Prefetch configuration
+    private static final int PREFETCH_INTERVAL = 10;        // Ticks between prefetch scans
+    private static final int PREFETCH_AHEAD = 6;            // Chunks beyond the view distance to prefetch
+    private static final int PREFETCH_WIDTH = 2;            // Chunks to each side of the movement direction
+    private static final double MIN_MOVEMENT = 2.0;         // Minimum movement (in blocks) between scans
+    private static final int MAX_QUEUED_TASKS = 2048;
+    private static final int MAX_PREFETCHED = 65536;
+
+    private static final ExecutorService PREFETCH_POOL = Executors.newFixedThreadPool(THREAD_POOL_SIZE, r -> {
+        Thread thread = new Thread(r, "LostCities-Prefetch");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+
+    private static final Map<UUID, Vec3> lastPlayerPositions = new ConcurrentHashMap<>();
+    private static final Set<ChunkCoord> prefetched = ConcurrentHashMap.newKeySet();
+    private static final AtomicInteger prefetchCount = new AtomicInteger(0);
+    // Incremented on cleanup so that tasks queued for old dimension info are dropped
+    private static final AtomicInteger epoch = new AtomicInteger(0);
+
     // Biome cache for fast lookups (C2ME optimization)
     private static final int BIOME_CACHE_SIZE = 4096;
     private static final ConcurrentHashMap<Long, String> biomeCache = new ConcurrentHashMap<>(BIOME_CACHE_SIZE);
+    private static final ConcurrentLinkedQueue<Long> biomeCacheOrder = new ConcurrentLinkedQueue<>();
     private static final AtomicInteger biomeCacheHits = new AtomicInteger(0);
     private static final AtomicInteger biomeCacheMisses = new AtomicInteger(0);
     
@@ -39,26 +66,84 @@ public class ChunkGenOptimizer {
     private static final int MAX_POOLED_ARRAYS = 256;
     
     /**
-     * Get the chunk generation thread pool
+     * Scan the players of this level and queue prefetch tasks for the chunks in front of them.
+     * Call this every tick from the server thread
      */
-    public static ForkJoinPool getChunkGenPool() {
-        return CHUNK_GEN_POOL;
+    public static void tick(ServerLevel level) {
+        if (level.getGameTime() % PREFETCH_INTERVAL != 0 || !AdaptivePerformanceManager.allowsBackgroundWork()) {
+            return;
+        }
+        if (level.players().isEmpty()) {
+            return;
+        }
+        IDimensionInfo dimInfo = Registration.LOSTCITY_FEATURE.get().getDimensionInfo(level);
+        if (dimInfo == null) {
+            return;
+        }
+        if (prefetched.size() > MAX_PREFETCHED) {
+            prefetched.clear();
+        }
+
+        int viewDistance = level.getServer().getPlayerList().getViewDistance();
+        int currentEpoch = epoch.get();
+        for (ServerPlayer player : level.players()) {
+            Vec3 pos = player.position();
+            Vec3 last = lastPlayerPositions.put(player.getUUID(), pos);
+            if (last == null) {
+                continue;
+            }
+            double dx = pos.x - last.x;
+            double dz = pos.z - last.z;
+            double len = Math.sqrt(dx * dx + dz * dz);
+            if (len < MIN_MOVEMENT) {
+                continue;
+            }
+            dx /= len;
+            dz /= len;
+            int playerX = player.chunkPosition().x;
+            int playerZ = player.chunkPosition().z;
+            for (int d = viewDistance - 1; d <= viewDistance + PREFETCH_AHEAD; d++) {
+                for (int w = -PREFETCH_WIDTH; w <= PREFETCH_WIDTH; w++) {
+                    // Perpendicular to the movement direction is (-dz, dx)
+                    int chunkX = playerX + fastFloor(dx * d - dz * w + 0.5);
+                    int chunkZ = playerZ + fastFloor(dz * d + dx * w + 0.5);
+                    ChunkCoord coord = new ChunkCoord(level.dimension(), chunkX, chunkZ);
+                    if (taskQueue.size() >= MAX_QUEUED_TASKS) {
+                        return;
+                    }
+                    if (level.getChunkSource().hasChunk(chunkX, chunkZ) || !prefetched.add(coord)) {
+                        continue;
+                    }
+                    submitPrioritizedTask(chunkX, chunkZ, playerX, playerZ, () -> prefetch(level, dimInfo, coord, currentEpoch));
+                }
+            }
+        }
     }
-    
+
     /**
-     * Submit a chunk generation task to the parallel pool
+     * Calculate everything that LostCityTerrainFeature.generate() will need for this chunk. The
+     * characteristics and BuildingInfo are calculated under the same lock that the worldgen threads
+     * need so nothing is done while the server is under load. Skipped chunks can be queued again
+     * by a later scan
      */
-    public static <T> CompletableFuture<T> submitChunkTask(Callable<T> task) {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                return task.call();
-            } catch (Exception e) {
-                LOGGER.error("Chunk generation task failed", e);
-                throw new RuntimeException(e);
-            }
-        }, CHUNK_GEN_POOL);
+    private static void prefetch(ServerLevel level, IDimensionInfo dimInfo, ChunkCoord coord, int taskEpoch) {
+        if (taskEpoch != epoch.get()) {
+            return;
+        }
+        if (!AdaptivePerformanceManager.allowsBackgroundWork()) {
+            prefetched.remove(coord);
+            return;
+        }
+        dimInfo.getFeature().getHeightmap(coord, level);
+        if (!AdaptivePerformanceManager.allowsBackgroundWork()) {
+            prefetched.remove(coord);
+            return;
+        }
+        BuildingInfo.getChunkCharacteristics(coord, dimInfo);
+        BuildingInfo.getBuildingInfo(coord, dimInfo);
+        prefetchCount.incrementAndGet();
     }
-    
+
     /**
      * Biome cache lookup - inspired by C2ME's biome cache optimization
      */
@@ -75,13 +160,15 @@ public class ChunkGenOptimizer {
         biomeCacheMisses.incrementAndGet();
         String biome = biomeGetter.get();
         
-        // Limit cache size
-        if (biomeCache.size() < BIOME_CACHE_SIZE) {
-            biomeCache.put(key, biome);
-        } else {
-            // Random eviction when full (fast, good enough for cache)
-            if (Math.random() < 0.1) {
-                biomeCache.clear();
+        // Limit cache size by evicting the oldest entries first
+        if (biomeCache.put(key, biome) == null) {
+            biomeCacheOrder.offer(key);
+            while (biomeCache.size() > BIOME_CACHE_SIZE) {
+                Long oldest = biomeCacheOrder.poll();
+                if (oldest == null) {
+                    break;
+                }
+                biomeCache.remove(oldest);
             }
         }
         
@@ -180,6 +267,27 @@ public class ChunkGenOptimizer {
      */
     private static final PriorityBlockingQueue<ChunkTask> taskQueue = new PriorityBlockingQueue<>();
     
+    static {
+        for (int i = 0; i < THREAD_POOL_SIZE; i++) {
+            PREFETCH_POOL.execute(ChunkGenOptimizer::prefetchLoop);
+        }
+    }
+
+    /**
+     * Worker loop: always process the queued task that is closest to a player
+     */
+    private static void prefetchLoop() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                taskQueue.take().run();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                LOGGER.error("Chunk prefetch task failed", e);
+            }
+        }
+    }
+
     /**
      * Submit a prioritized chunk task
      */
@@ -204,15 +312,20 @@ public class ChunkGenOptimizer {
      */
     public static void cleanup() {
         LOGGER.info("Cleaning up chunk generation optimizer");
-        LOGGER.info("Biome cache stats - Hits: {}, Misses: {}, Size: {}", 
-            biomeCacheHits.get(), biomeCacheMisses.get(), biomeCache.size());
+        LOGGER.info("Biome cache stats - Hits: {}, Misses: {}, Size: {}, Prefetched chunks: {}",
+            biomeCacheHits.get(), biomeCacheMisses.get(), biomeCache.size(), prefetchCount.get());
         
+        epoch.incrementAndGet();
         biomeCache.clear();
+        biomeCacheOrder.clear();
         noiseArrayPool.clear();
         taskQueue.clear();
+        prefetched.clear();
+        lastPlayerPositions.clear();
         
         biomeCacheHits.set(0);
         biomeCacheMisses.set(0);
+        prefetchCount.set(0);
     }
     
     /**
@@ -225,8 +338,8 @@ public class ChunkGenOptimizer {
         double hitRate = total > 0 ? (hits * 100.0 / total) : 0;
         
         return String.format(
-            "ChunkGen Stats - Threads: %d, Biome Cache: %d entries, Hit Rate: %.2f%%, Pooled Arrays: %d, Queued Tasks: %d",
-            THREAD_POOL_SIZE, biomeCache.size(), hitRate, noiseArrayPool.size(), taskQueue.size()
+            "ChunkGen Stats - Threads: %d, Biome Cache: %d entries, Hit Rate: %.2f%%, Pooled Arrays: %d, Queued Tasks: %d, Prefetched: %d",
+            THREAD_POOL_SIZE, biomeCache.size(), hitRate, noiseArrayPool.size(), taskQueue.size(), prefetchCount.get()
         );
     }
     
@@ -234,19 +347,12 @@ public class ChunkGenOptimizer {
      * Shutdown the thread pool gracefully
      */
     public static void shutdown() {
-        LOGGER.info("Shutting down chunk generation thread pool");
+        LOGGER.info("Shutting down chunk prefetch thread pool");
         LOGGER.info(getStats());
         
         cleanup();
         
-        CHUNK_GEN_POOL.shutdown();
-        try {
-            if (!CHUNK_GEN_POOL.awaitTermination(10, TimeUnit.SECONDS)) {
-                CHUNK_GEN_POOL.shutdownNow();
-            }
-        } catch (InterruptedException e) {
-            CHUNK_GEN_POOL.shutdownNow();
-            Thread.currentThread().interrupt();
-        }
+        // The workers are blocked waiting for tasks so they have to be interrupted
+        PREFETCH_POOL.shutdownNow();
     }
 }
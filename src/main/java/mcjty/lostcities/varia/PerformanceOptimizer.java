@@ -1,14 +1,18 @@
 package mcjty.lostcities.varia;
 
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
 import net.minecraft.world.level.block.state.BlockState;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import java.lang.ref.SoftReference;
-import java.util.Map;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
 
 /**
  * Performance optimization utilities for Lost Cities
@@ -17,142 +21,211 @@ import java.util.concurrent.atomic.AtomicLong;
 public class PerformanceOptimizer {
     private static final Logger LOGGER = LogManager.getLogger();
     
-    // Performance metrics
-    private static final AtomicLong cacheHits = new AtomicLong(0);
-    private static final AtomicLong cacheMisses = new AtomicLong(0);
-    private static final AtomicLong cacheEvictions = new AtomicLong(0);
-    
-    // Cache configuration
-    private static final int MAX_CACHE_SIZE = 8192; // Maximum cached chunks
-    private static final int CLEANUP_THRESHOLD = 6144; // When to start cleanup (75%)
-    private static final long CACHE_RETENTION_TIME = 60000; // 1 minute in milliseconds
-    
-    /**
-     * Soft reference cache entry with timestamp for LRU eviction
-     */
-    public static class CacheEntry<T> {
-        private final SoftReference<T> reference;
-        private volatile long lastAccessTime;
-        
-        public CacheEntry(T value) {
-            this.reference = new SoftReference<>(value);
-            this.lastAccessTime = System.currentTimeMillis();
-        }
-        
-        public T get() {
-            T value = reference.get();
-            if (value != null) {
-                lastAccessTime = System.currentTimeMillis();
-            }
-            return value;
-        }
-        
-        public long getLastAccessTime() {
-            return lastAccessTime;
-        }
-        
-        public boolean isStale() {
-            return System.currentTimeMillis() - lastAccessTime > CACHE_RETENTION_TIME;
-        }
-    }
-    
+    // All caches that were ever created (caches are static so this list doesn't grow at runtime)
+    private static final List<LRUCache<?, ?>> CACHES = new CopyOnWriteArrayList<>();
+
+    // Default maximum number of entries in a cache
+    public static final int MAX_CACHE_SIZE = 8192;
+
     /**
-     * Thread-safe LRU cache with size limits and automatic cleanup
+     * Thread-safe bounded cache with strong references. Eviction uses the CLOCK algorithm (an
+     * approximation of LRU): every entry occupies a slot in a ring and has a 'referenced' bit that is
+     * set on every hit. When a new entry needs a slot the clock hand sweeps the ring, clearing the
+     * bits of recently used entries and evicting the first one that wasn't used since the last sweep.
+     * Lookups never lock and eviction is O(1) amortised. Only insertions and removals take the lock.
+     * Use getOrCompute() for lookups that calculate missing values so that the CacheMiss JFR event
+     * covers the time it took to calculate the value
      */
     public static class LRUCache<K, V> {
-        private final ConcurrentHashMap<K, CacheEntry<V>> cache = new ConcurrentHashMap<>();
+        private final ConcurrentHashMap<K, Entry<K, V>> cache;
         private final String cacheName;
-        
+        private final Entry<K, V>[] ring;
+        private int hand = 0;
+
+        // Striped counters so that concurrent lookups from worldgen threads don't contend
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private final LongAdder evictions = new LongAdder();
+
+        private static class Entry<K, V> {
+            private final K key;
+            private final V value;
+            private final int slot;
+            private volatile boolean referenced = false;
+
+            private Entry(K key, V value, int slot) {
+                this.key = key;
+                this.value = value;
+                this.slot = slot;
+            }
+        }
+
         public LRUCache(String name) {
+            this(name, MAX_CACHE_SIZE);
+        }
+
+        @SuppressWarnings("unchecked")
+        public LRUCache(String name, int capacity) {
             this.cacheName = name;
+            this.cache = new ConcurrentHashMap<>(capacity);
+            this.ring = new Entry[capacity];
+            CACHES.add(this);
         }
-        
+
         public V get(K key) {
-            CacheEntry<V> entry = cache.get(key);
+            Entry<K, V> entry = cache.get(key);
             if (entry != null) {
-                V value = entry.get();
-                if (value != null) {
-                    cacheHits.incrementAndGet();
-                    return value;
-                } else {
-                    // Soft reference was cleared
-                    cache.remove(key);
-                    cacheEvictions.incrementAndGet();
+                // Avoid writing to the entry (and invalidating the cache line) if the bit is already set
+                if (!entry.referenced) {
+                    entry.referenced = true;
                 }
+                hits.increment();
+                return entry.value;
             }
-            cacheMisses.incrementAndGet();
+            misses.increment();
             return null;
         }
-        
+
+        /**
+         * Return the cached value or calculate it with 'compute' and cache it. 'param' is passed on
+         * to 'compute' so that callers can use a method reference instead of a capturing lambda
+         */
+        public <P> V getOrCompute(K key, P param, BiFunction<K, P, V> compute) {
+            V value = get(key);
+            if (value != null) {
+                return value;
+            }
+            WorldgenEvents.CacheMiss event = new WorldgenEvents.CacheMiss();
+            event.begin();
+            value = compute.apply(key, param);
+            put(key, value);
+            if (event.shouldCommit()) {
+                if (key instanceof ChunkCoord coord) {
+                    event.set(coord, null);
+                }
+                event.cache = cacheName;
+                event.commit();
+            }
+            return value;
+        }
+
         public void put(K key, V value) {
             if (value == null) return;
-            
-            // Trigger cleanup if needed
-            if (cache.size() >= CLEANUP_THRESHOLD) {
-                cleanupStaleEntries();
+
+            synchronized (this) {
+                Entry<K, V> existing = cache.get(key);
+                int slot = existing != null ? existing.slot : findFreeSlot();
+                Entry<K, V> entry = new Entry<>(key, value, slot);
+                ring[slot] = entry;
+                cache.put(key, entry);
             }
-            
-            cache.put(key, new CacheEntry<>(value));
         }
-        
+
+        /**
+         * Advance the clock hand until a free slot or an entry that was not referenced since the
+         * last sweep is found. This terminates after at most two rotations
+         */
+        private int findFreeSlot() {
+            while (true) {
+                int slot = hand;
+                hand = (hand + 1) % ring.length;
+                Entry<K, V> entry = ring[slot];
+                if (entry == null) {
+                    return slot;
+                }
+                if (entry.referenced) {
+                    entry.referenced = false;
+                } else {
+                    cache.remove(entry.key, entry);
+                    ring[slot] = null;
+                    evictions.increment();
+                    return slot;
+                }
+            }
+        }
+
         public boolean containsKey(K key) {
-            CacheEntry<V> entry = cache.get(key);
-            return entry != null && entry.get() != null;
+            return cache.containsKey(key);
         }
-        
-        public void remove(K key) {
-            cache.remove(key);
+
+        public synchronized void remove(K key) {
+            Entry<K, V> entry = cache.remove(key);
+            if (entry != null) {
+                ring[entry.slot] = null;
+            }
         }
-        
-        public void clear() {
+
+        public synchronized void clear() {
             int size = cache.size();
             cache.clear();
+            Arrays.fill(ring, null);
+            hand = 0;
             if (size > 0) {
                 LOGGER.debug("Cleared {} cache: {} entries", cacheName, size);
             }
         }
-        
+
         public int size() {
             return cache.size();
         }
-        
-        /**
-         * Remove stale and garbage collected entries
-         */
-        public void cleanupStaleEntries() {
-            long now = System.currentTimeMillis();
-            AtomicInteger removed = new AtomicInteger(0);
-            
-            // Remove stale entries
-            cache.entrySet().removeIf(entry -> {
-                CacheEntry<V> cacheEntry = entry.getValue();
-                boolean shouldRemove = cacheEntry.get() == null || cacheEntry.isStale();
-                if (shouldRemove) removed.incrementAndGet();
-                return shouldRemove;
-            });
-            
-            // If still too large, remove oldest entries
-            if (cache.size() > MAX_CACHE_SIZE) {
-                cache.entrySet().stream()
-                    .sorted((a, b) -> Long.compare(
-                        a.getValue().getLastAccessTime(),
-                        b.getValue().getLastAccessTime()
-                    ))
-                    .limit(cache.size() - MAX_CACHE_SIZE)
-                    .forEach(entry -> {
-                        cache.remove(entry.getKey());
-                        removed.incrementAndGet();
-                    });
-            }
-            
-            if (removed.get() > 0) {
-                cacheEvictions.addAndGet(removed.get());
-                LOGGER.debug("Cleaned up {} cache: removed {} stale entries, {} remaining",
-                    cacheName, removed.get(), cache.size());
-            }
+
+        public int capacity() {
+            return ring.length;
+        }
+
+        public String getName() {
+            return cacheName;
+        }
+
+        public long getHits() {
+            return hits.sum();
+        }
+
+        public long getMisses() {
+            return misses.sum();
+        }
+
+        public long getEvictions() {
+            return evictions.sum();
+        }
+
+        public double getHitRate() {
+            long h = hits.sum();
+            long total = h + misses.sum();
+            return total > 0 ? (h * 100.0 / total) : 0;
+        }
+
+        public void resetStats() {
+            hits.reset();
+            misses.reset();
+            evictions.reset();
+        }
+
+        public String getStats() {
+            return String.format("%s - Size: %d/%d, Hits: %d, Misses: %d, Hit Rate: %.2f%%, Evictions: %d",
+                cacheName, size(), capacity(), getHits(), getMisses(), getHitRate(), getEvictions());
+        }
+
+        public JsonObject toJson() {
+            JsonObject object = new JsonObject();
+            object.addProperty("name", cacheName);
+            object.addProperty("size", size());
+            object.addProperty("capacity", capacity());
+            object.addProperty("hits", getHits());
+            object.addProperty("misses", getMisses());
+            object.addProperty("evictions", getEvictions());
+            object.addProperty("hitrate", getHitRate());
+            return object;
         }
     }
-    
+
+    /**
+     * All caches (in creation order)
+     */
+    public static List<LRUCache<?, ?>> getCaches() {
+        return Collections.unmodifiableList(CACHES);
+    }
+
     /**
      * Block state pool to reuse common block states
      */
@@ -192,27 +265,46 @@ public class PerformanceOptimizer {
     }
     
     /**
-     * Get cache statistics
+     * Get cache statistics (totals of all caches)
      */
     public static String getCacheStats() {
-        long hits = cacheHits.get();
-        long misses = cacheMisses.get();
+        long hits = 0;
+        long misses = 0;
+        long evictions = 0;
+        for (LRUCache<?, ?> cache : CACHES) {
+            hits += cache.getHits();
+            misses += cache.getMisses();
+            evictions += cache.getEvictions();
+        }
         long total = hits + misses;
         double hitRate = total > 0 ? (hits * 100.0 / total) : 0;
         
         return String.format(
             "Cache Stats - Hits: %d, Misses: %d, Hit Rate: %.2f%%, Evictions: %d, Block Pool: %d",
-            hits, misses, hitRate, cacheEvictions.get(), BlockStatePool.size()
+            hits, misses, hitRate, evictions, BlockStatePool.size()
         );
     }
+
+    /**
+     * Machine readable statistics of every cache
+     */
+    public static JsonObject getCacheStatsJson() {
+        JsonObject root = new JsonObject();
+        root.addProperty("timestamp", System.currentTimeMillis());
+        JsonArray caches = new JsonArray();
+        for (LRUCache<?, ?> cache : CACHES) {
+            caches.add(cache.toJson());
+        }
+        root.add("caches", caches);
+        root.addProperty("blockpool", BlockStatePool.size());
+        return root;
+    }
     
     /**
      * Reset statistics (useful for testing)
      */
     public static void resetStats() {
-        cacheHits.set(0);
-        cacheMisses.set(0);
-        cacheEvictions.set(0);
+        CACHES.forEach(LRUCache::resetStats);
     }
     
     /**
@@ -3,6 +3,8 @@ package mcjty.lostcities.varia;
 import net.minecraft.world.level.levelgen.LegacyRandomSource;
 import net.minecraft.world.level.levelgen.synth.SimplexNoise;
 
+import java.util.Arrays;
+
 // @todo 1.15 copy from 1.14: use the 1.15 version!
 public class PerlinNoiseGenerator14 {
    private final SimplexNoise[] noiseLevels;
@@ -34,6 +36,35 @@ public class PerlinNoiseGenerator14 {
       return d0;
    }
 
+   /**
+    * Fill the buffer with getValue((minX + x) / scale, (minZ + z) / scale) for a block of w * h points
+    * (row by row). The octave loop is on the outside so that the inner loop is a simple loop over
+    * the buffer. The values are added in the same order as getValue() so the results are identical
+    */
+   public double[] getRegion(double[] buffer, int minX, int minZ, int w, int h, double scale) {
+      if (buffer == null || buffer.length < w * h) {
+         buffer = new double[w * h];
+      }
+      double[] xs = new double[w];
+      for (int x = 0; x < w; x++) {
+         xs[x] = (minX + x) / scale;
+      }
+      Arrays.fill(buffer, 0, w * h, 0.0D);
+      double d1 = 1.0D;
+      for (int i = 0; i < this.levels; ++i) {
+         SimplexNoise noise = this.noiseLevels[i];
+         for (int z = 0; z < h; z++) {
+            double zz = (minZ + z) / scale * d1;
+            int offset = z * w;
+            for (int x = 0; x < w; x++) {
+               buffer[offset + x] += noise.getValue(xs[x] * d1, zz) / d1;
+            }
+         }
+         d1 /= 2.0D;
+      }
+      return buffer;
+   }
+
    public double getSurfaceNoiseValue(double x, double y, double z, double scale) {
       return this.noiseAt(x, y, true) * 0.55D;
    }
@@ -0,0 +1,77 @@
+package mcjty.lostcities.varia;
+
+/**
+ * Stateless random numbers derived from a seed and a position. Nothing is shared between calls
+ * so these are safe to use from parallel worldgen threads and always give the same result for
+ * the same input
+ */
+public class PositionalRandom {
+
+    private static final long MULTIPLIER = 0x5DEECE66DL;
+    private static final long ADDEND = 0xBL;
+    private static final long MASK = (1L << 48) - 1;
+
+    /**
+     * Splittable hash (SplitMix64 finalizer) of a seed, a position and a salt that makes it
+     * possible to get independent values for the same position
+     */
+    public static long hash(long seed, int x, int z, long salt) {
+        long h = seed + salt * 0x9E3779B97F4A7C15L;
+        h = mix(h + x * 0xC2B2AE3D27D4EB4FL);
+        h = mix(h + z * 0x165667B19E3779F9L);
+        return h;
+    }
+
+    public static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * A value between 0 (inclusive) and bound (exclusive) from a hash
+     */
+    public static int nextInt(long hash, int bound) {
+        return (int) (((hash >>> 33) * bound) >>> 31);
+    }
+
+    /**
+     * A value between 0 (inclusive) and 1 (exclusive) from a hash
+     */
+    public static float nextFloat(long hash) {
+        return (hash >>> 40) * 0x1.0p-24f;
+    }
+
+    /**
+     * Gives exactly the same result as 'new Random(seed).nextDouble()' without allocating
+     */
+    public static double javaNextDouble(long seed) {
+        long s = (seed ^ MULTIPLIER) & MASK;
+        s = (s * MULTIPLIER + ADDEND) & MASK;
+        int high = (int) (s >>> 22);
+        s = (s * MULTIPLIER + ADDEND) & MASK;
+        int low = (int) (s >>> 21);
+        return (((long) high << 27) + low) * 0x1.0p-53;
+    }
+
+    /**
+     * Gives exactly the same result as 'new Random(seed).nextInt(bound)' but without allocating
+     * or sharing a Random instance. This is used where the generated world has to stay the same
+     * as before
+     */
+    public static int javaNextInt(long seed, int bound) {
+        long s = (seed ^ MULTIPLIER) & MASK;
+        if ((bound & -bound) == bound) {
+            s = (s * MULTIPLIER + ADDEND) & MASK;
+            return (int) ((bound * (long) (int) (s >>> 17)) >> 31);
+        }
+        int bits;
+        int val;
+        do {
+            s = (s * MULTIPLIER + ADDEND) & MASK;
+            bits = (int) (s >>> 17);
+            val = bits % bound;
+        } while (bits - val + (bound - 1) < 0);
+        return val;
+    }
+}
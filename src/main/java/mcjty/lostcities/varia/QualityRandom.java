@@ -33,6 +33,39 @@ public class QualityRandom extends Random {
         return (x + v) ^ w;
     }
 
+    /**
+     * Same result as 'new QualityRandom(seed).nextFloat()' but without allocating
+     */
+    public static float firstFloat(long seed) {
+        long v = 4101842887655102017L;
+        long w = 1;
+        long u = seed ^ v;
+        // The three steps done by the constructor
+        for (int i = 0; i < 3; i++) {
+            u = u * 2862933555777941757L + 7046029254386353087L;
+            v ^= v >>> 17;
+            v ^= v << 31;
+            v ^= v >>> 8;
+            w = 4294957665L * (w & 0xffffffffL) + (w >>> 32);
+            if (i == 0) {
+                v = u;
+            } else if (i == 1) {
+                w = v;
+            }
+        }
+        // And the first nextLong()
+        u = u * 2862933555777941757L + 7046029254386353087L;
+        v ^= v >>> 17;
+        v ^= v << 31;
+        v ^= v >>> 8;
+        w = 4294957665L * (w & 0xffffffffL) + (w >>> 32);
+        long x = u ^ (u << 21);
+        x ^= x >>> 35;
+        x ^= x << 4;
+        long result = (x + v) ^ w;
+        return (int) (result >>> 40) / ((float) (1 << 24));
+    }
+
     @Override
     protected int next(int bits) {
         return (int) (nextLong() >>> (64-bits));
@@ -0,0 +1,62 @@
+package mcjty.lostcities.varia;
+
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+/**
+ * An immutable weighted selection. The cumulative weights are calculated once so that picking
+ * a value is a binary search that doesn't allocate anything. Use this instead of
+ * Tools.getRandomFromList() when the same list with the same weights is used over and over
+ */
+public class WeightedTable<T> {
+
+    private final Object[] values;
+    private final float[] cumulative;
+
+    private WeightedTable(Object[] values, float[] cumulative) {
+        this.values = values;
+        this.cumulative = cumulative;
+    }
+
+    public static <T> WeightedTable<T> of(List<T> list, Function<T, Float> weightGetter) {
+        Object[] values = new Object[list.size()];
+        float[] cumulative = new float[list.size()];
+        float totalweight = 0;
+        for (int i = 0; i < list.size(); i++) {
+            T value = list.get(i);
+            totalweight += weightGetter.apply(value);
+            values[i] = value;
+            cumulative[i] = totalweight;
+        }
+        return new WeightedTable<>(values, cumulative);
+    }
+
+    public boolean isEmpty() {
+        return values.length == 0;
+    }
+
+    /**
+     * A random value (with the same distribution as Tools.getRandomFromList()) or null if the table is empty
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public T get(Random random) {
+        if (values.length == 0) {
+            return null;
+        }
+        float r = random.nextFloat() * cumulative[cumulative.length - 1];
+        int lo = 0;
+        int hi = cumulative.length - 1;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (cumulative[mid] >= r) {
+                hi = mid;
+            } else {
+                lo = mid + 1;
+            }
+        }
+        return (T) values[lo];
+    }
+}
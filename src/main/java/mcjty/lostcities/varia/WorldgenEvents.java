@@ -0,0 +1,93 @@
+package mcjty.lostcities.varia;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder events for the Lost Cities worldgen stages. With these a JFR recording shows
+ * which chunks, buildings and stages are slow instead of anonymous frames under feature placement.
+ *
+ * Usage follows the standard JFR pattern:
+ * <pre>
+ *     ChunkGeneration event = new ChunkGeneration();
+ *     event.begin();
+ *     ... work ...
+ *     if (event.shouldCommit()) {
+ *         event.set(coord, building);
+ *         event.commit();
+ *     }
+ * </pre>
+ * When an event type is disabled begin() and shouldCommit() are no-ops that the JIT removes together
+ * with the (non escaping) event allocation, so disabled events have no overhead. Expensive fields
+ * are only filled in after shouldCommit() returned true.
+ */
+public class WorldgenEvents {
+
+    @Category("Lost Cities")
+    @StackTrace(false)
+    public abstract static class LostCitiesEvent extends Event {
+        @Label("Dimension")
+        public String dimension;
+
+        @Label("Chunk X")
+        public int chunkX;
+
+        @Label("Chunk Z")
+        public int chunkZ;
+
+        @Label("Building")
+        public String building;
+
+        public void set(ChunkCoord coord, String building) {
+            this.dimension = coord.dimension().location().toString();
+            this.chunkX = coord.chunkX();
+            this.chunkZ = coord.chunkZ();
+            this.building = building;
+        }
+    }
+
+    @Name("lostcities.ChunkGeneration")
+    @Label("Chunk Generation")
+    @Description("Lost Cities generation of a complete chunk")
+    public static class ChunkGeneration extends LostCitiesEvent {
+        @Label("City")
+        public boolean city;
+    }
+
+    @Name("lostcities.PartPlacement")
+    @Label("Part Placement")
+    @Description("Placement of a single building part")
+    public static class PartPlacement extends LostCitiesEvent {
+        @Label("Part")
+        public String part;
+
+        @Label("Y")
+        public int y;
+    }
+
+    @Name("lostcities.Damage")
+    @Label("Damage")
+    @Description("Explosion damage and the cleanup after it for a chunk")
+    public static class Damage extends LostCitiesEvent {
+    }
+
+    @Name("lostcities.TodoExecution")
+    @Label("Todo Execution")
+    @Description("Execution of the postponed todo items of a chunk")
+    public static class TodoExecution extends LostCitiesEvent {
+        @Label("Executed")
+        public int executed;
+    }
+
+    @Name("lostcities.CacheMiss")
+    @Label("Cache Miss")
+    @Description("Lookup in one of the Lost Cities caches that had to be calculated. The duration is the time it took to calculate the value")
+    public static class CacheMiss extends LostCitiesEvent {
+        @Label("Cache")
+        public String cache;
+    }
+}
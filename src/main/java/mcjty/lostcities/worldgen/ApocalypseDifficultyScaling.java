@@ -1,5 +1,6 @@
 package mcjty.lostcities.worldgen;
 
+import mcjty.lostcities.varia.AdaptivePerformanceManager;
 import net.minecraft.advancements.Advancement;
 import net.minecraft.core.BlockPos;
 import net.minecraft.resources.ResourceLocation;
@@ -74,8 +75,8 @@ public class ApocalypseDifficultyScaling {
         
         tickCounter++;
         
-        // Run every 8 ticks (1 in 8 chance matches datapack)
-        if (tickCounter % 8 != 0) return;
+        // Run every 8 ticks (1 in 8 chance matches datapack). Less often when the server is under load
+        if (tickCounter % (8 * AdaptivePerformanceManager.getEntityTickInterval()) != 0) return;
         
         for (ServerLevel level : event.getServer().getAllLevels()) {
             if (!isLostCitiesDimension(level)) continue;
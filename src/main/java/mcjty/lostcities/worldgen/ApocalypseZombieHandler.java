@@ -1,5 +1,6 @@
 package mcjty.lostcities.worldgen;
 
+import mcjty.lostcities.varia.AdaptivePerformanceManager;
 import net.minecraft.core.BlockPos;
 import net.minecraft.core.Direction;
 import net.minecraft.server.level.ServerLevel;
@@ -51,7 +52,10 @@ public class ApocalypseZombieHandler {
         
         tickCounter++;
         
-        // Run every tick for critical mechanics
+        // Under load these mechanics run less often
+        if (tickCounter % AdaptivePerformanceManager.getEntityTickInterval() != 0) return;
+        
+        // Everything below runs once per entity tick interval (every tick at full speed)
         for (ServerLevel level : event.getServer().getAllLevels()) {
             if (!isLostCitiesDimension(level)) continue;
             
@@ -63,7 +67,7 @@ public class ApocalypseZombieHandler {
                         updateZombieAttributes(zombie, level);
                     }
                     
-                    // Lunge attack when near other zombies (1 in 30 chance per tick)
+                    // Lunge attack when near other zombies (1 in 30 chance per interval)
                     if (RANDOM.nextInt(30) == 0) {
                         attemptZombieLunge(zombie, level);
                     }
@@ -291,6 +291,34 @@ public class ChunkDriver {
         return this;
     }
 
+    /**
+     * Add the same block 'count' times going up from the current position. The result is the same as
+     * calling add() 'count' times but for blocks that don't depend on their neighbours the whole range
+     * is put at once. The neighbours are still updated
+     */
+    public ChunkDriver addRange(BlockState state, int count) {
+        Block block = state.getBlock();
+        if (block instanceof CrossCollisionBlock || block instanceof WallBlock || block instanceof StairBlock || block instanceof StructureVoidBlock) {
+            for (int i = 0; i < count; i++) {
+                add(state);
+            }
+            return this;
+        }
+        int x = current.getX();
+        int y = current.getY();
+        int z = current.getZ();
+        ChunkAccess thisChunk = region.getChunk(x >> 4, z >> 4);
+        for (int yy = y; yy < y + count; yy++) {
+            updateAdjacent(state, Direction.EAST, pos.set(x - 1, yy, z), thisChunk);
+            updateAdjacent(state, Direction.WEST, pos.set(x + 1, yy, z), thisChunk);
+            updateAdjacent(state, Direction.SOUTH, pos.set(x, yy, z - 1), thisChunk);
+            updateAdjacent(state, Direction.NORTH, pos.set(x, yy, z + 1), thisChunk);
+        }
+        cache.putRange(x, z, y, y + count - 1, state);
+        current.setY(y + count);
+        return this;
+    }
+
     public BlockState getBlock() {
         return getBlock(current);
     }
@@ -320,6 +348,12 @@ public class ChunkDriver {
         return getBlock(pos.set(x + (primer.getPos().x << 4), y, z + (primer.getPos().z << 4)));
     }
 
+    // Highest non-air block that is known to the cache at this column (relative coordinates) or
+    // Integer.MIN_VALUE if there is none
+    public int getCachedHeight(int x, int z) {
+        return cache.heightmap[x & 0xf][z & 0xf];
+    }
+
     private static class S {
         private final BlockState[] section = new BlockState[SECTION_SIZE];
         private boolean isEmpty = true;
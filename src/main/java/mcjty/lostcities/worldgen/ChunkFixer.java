@@ -1,6 +1,7 @@
 package mcjty.lostcities.worldgen;
 
 import mcjty.lostcities.varia.ChunkCoord;
+import mcjty.lostcities.varia.PositionalRandom;
 import mcjty.lostcities.worldgen.lost.BuildingInfo;
 import net.minecraft.core.BlockPos;
 import net.minecraft.world.level.LevelAccessor;
@@ -10,10 +11,9 @@ import net.minecraft.world.level.block.state.BlockState;
 import net.minecraft.world.level.block.state.properties.BooleanProperty;
 import net.minecraft.world.level.chunk.ChunkStatus;
 
-import java.util.Random;
-
 public class ChunkFixer {
 
+    private static final long VINE_SALT = 0x76696e6573L;
 
     private static void executePostTodo(ChunkCoord coord, IDimensionInfo provider) {
         BuildingInfo info = BuildingInfo.getBuildingInfo(coord, provider);
@@ -34,30 +34,19 @@ public class ChunkFixer {
 
         int maxHeight = info.getMaxHeight();
 
+        long seed = provider.getSeed();
         if (info.hasBuilding) {
-            if (world.getChunk(coord.chunkX() + 1, coord.chunkZ()).getStatus().isOrAfter(ChunkStatus.FEATURES)) {
+            if (world.getChunk(chunkX + 1, chunkZ).getStatus().isOrAfter(ChunkStatus.FEATURES)) {
                 BuildingInfo adjacent = info.getXmax();
                 int bottom = Math.max(adjacent.getCityGroundLevel() + 3, adjacent.hasBuilding ? adjacent.getMaxHeight() : (adjacent.getCityGroundLevel() + 3));
-                for (int z = 0; z < 15; z++) {
-                    for (int y = bottom; y < maxHeight; y++) {
-                        if (world.getRandom().nextFloat() < vineChance) {
-                            createVineStrip(world, bottom, VineBlock.WEST, new BlockPos(cx + 16, y, cz + z), new BlockPos(cx + 15, y, cz + z));
-                        }
-                    }
-                }
+                generateVineFace(world, seed, vineChance, bottom, maxHeight, VineBlock.WEST, cx + 16, cz, 0, 1, -1, 0);
             }
         }
         if (info.getXmax().hasBuilding) {
             if (world.getChunk(chunkX + 1, chunkZ).getStatus().isOrAfter(ChunkStatus.FEATURES)) {
                 BuildingInfo adjacent = info.getXmax();
                 int bottom = Math.max(info.getCityGroundLevel() + 3, info.hasBuilding ? maxHeight : (info.getCityGroundLevel() + 3));
-                for (int z = 0; z < 15; z++) {
-                    for (int y = bottom; y < (adjacent.getMaxHeight()); y++) {
-                        if (world.getRandom().nextFloat() < vineChance) {
-                            createVineStrip(world, bottom, VineBlock.EAST, new BlockPos(cx + 15, y, cz + z), new BlockPos(cx + 16, y, cz + z));
-                        }
-                    }
-                }
+                generateVineFace(world, seed, vineChance, bottom, adjacent.getMaxHeight(), VineBlock.EAST, cx + 15, cz, 0, 1, 1, 0);
             }
         }
 
@@ -65,46 +54,77 @@ public class ChunkFixer {
             if (world.getChunk(chunkX, chunkZ + 1).getStatus().isOrAfter(ChunkStatus.FEATURES)) {
                 BuildingInfo adjacent = info.getZmax();
                 int bottom = Math.max(adjacent.getCityGroundLevel() + 3, adjacent.hasBuilding ? adjacent.getMaxHeight() : (adjacent.getCityGroundLevel() + 3));
-                for (int x = 0; x < 15; x++) {
-                    for (int y = bottom; y < maxHeight; y++) {
-                        if (world.getRandom().nextFloat() < vineChance) {
-                            createVineStrip(world, bottom, VineBlock.NORTH, new BlockPos(cx + x, y, cz + 16), new BlockPos(cx + x, y, cz + 15));
-                        }
-                    }
-                }
+                generateVineFace(world, seed, vineChance, bottom, maxHeight, VineBlock.NORTH, cx, cz + 16, 1, 0, 0, -1);
             }
         }
         if (info.getZmax().hasBuilding) {
             if (world.getChunk(chunkX, chunkZ + 1).getStatus().isOrAfter(ChunkStatus.FEATURES)) {
                 BuildingInfo adjacent = info.getZmax();
                 int bottom = Math.max(info.getCityGroundLevel() + 3, info.hasBuilding ? maxHeight : (info.getCityGroundLevel() + 3));
-                for (int x = 0; x < 15; x++) {
-                    for (int y = bottom; y < (adjacent.getMaxHeight()); y++) {
-                        if (world.getRandom().nextFloat() < vineChance) {
-                            createVineStrip(world, bottom, VineBlock.SOUTH, new BlockPos(cx + x, y, cz + 15), new BlockPos(cx + x, y, cz + 16));
-                        }
-                    }
-                }
+                generateVineFace(world, seed, vineChance, bottom, adjacent.getMaxHeight(), VineBlock.SOUTH, cx, cz + 15, 1, 0, 0, 1);
             }
         }
     }
 
-    private static void createVineStrip(LevelAccessor world, int bottom, BooleanProperty direction, BlockPos pos, BlockPos vineHolderPos) {
-        if (world.isEmptyBlock(vineHolderPos)) {
-            return;
-        }
-        if (!world.isEmptyBlock(pos)) {
+    /**
+     * Generate the vines on one building wall along the border of the chunk. Vines go in the 15 columns
+     * starting at (vineX, vineZ) in steps of (dx, dz) and hang on the wall block at offset (holderDx, holderDz).
+     * All decisions come from a hash of the seed and the position so the result doesn't depend on the order
+     * in which chunks are generated. The vines of a column are first calculated from a snapshot of that
+     * column and then written together
+     */
+    private static void generateVineFace(LevelAccessor world, long seed, float vineChance, int bottom, int top, BooleanProperty direction,
+                                         int vineX, int vineZ, int dx, int dz, int holderDx, int holderDz) {
+        if (top <= bottom) {
             return;
         }
+        int height = top - bottom;
+        boolean[] empty = new boolean[height];
+        boolean[] vines = new boolean[height];
         BlockState state = Blocks.VINE.defaultBlockState().setValue(direction, true);
-        world.setBlock(pos, state, 0);
-        pos = pos.below();
-        while (pos.getY() >= bottom && world.getRandom().nextFloat() < .8f) {
-            if (!world.isEmptyBlock(pos)) {
-                return;
+        BlockPos.MutableBlockPos pos = new BlockPos.MutableBlockPos();
+        for (int i = 0; i < 15; i++) {
+            int x = vineX + i * dx;
+            int z = vineZ + i * dz;
+            long column = PositionalRandom.hash(seed, x, z, VINE_SALT);
+            boolean snapshot = false;
+            boolean found = false;
+            for (int y = bottom; y < top; y++) {
+                // Even values for starting a strip, odd values for growing it down
+                if (PositionalRandom.nextFloat(PositionalRandom.mix(column + 2L * y)) >= vineChance) {
+                    continue;
+                }
+                if (world.isEmptyBlock(pos.set(x + holderDx, y, z + holderDz))) {
+                    continue;
+                }
+                if (!snapshot) {
+                    snapshot = true;
+                    for (int yy = bottom; yy < top; yy++) {
+                        empty[yy - bottom] = world.isEmptyBlock(pos.set(x, yy, z));
+                        vines[yy - bottom] = false;
+                    }
+                }
+                if (!empty[y - bottom] || vines[y - bottom]) {
+                    continue;
+                }
+                found = true;
+                vines[y - bottom] = true;
+                int yy = y - 1;
+                while (yy >= bottom && PositionalRandom.nextFloat(PositionalRandom.mix(column + 2L * yy + 1)) < .8f) {
+                    if (!empty[yy - bottom] || vines[yy - bottom]) {
+                        break;
+                    }
+                    vines[yy - bottom] = true;
+                    yy--;
+                }
+            }
+            if (found) {
+                for (int idx = 0; idx < height; idx++) {
+                    if (vines[idx]) {
+                        world.setBlock(pos.set(x, bottom + idx, z), state, 0);
+                    }
+                }
             }
-            world.setBlock(pos, state, 0);
-            pos = pos.below();
         }
     }
 
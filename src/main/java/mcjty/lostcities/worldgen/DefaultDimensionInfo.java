@@ -30,7 +30,8 @@ public class DefaultDimensionInfo implements IDimensionInfo {
     private WorldGenLevel world;
     private final LostCityProfile profile;
     private final LostCityProfile profileOutside;
-    private final WorldStyle style;
+    private WorldStyle style;
+    private int styleGeneration;
 
     private final Random random;
 
@@ -41,6 +42,7 @@ public class DefaultDimensionInfo implements IDimensionInfo {
         this.world = world;
         this.profile = profile;
         this.profileOutside = profileOutside;
+        styleGeneration = AssetRegistries.getGeneration();
         style = AssetRegistries.WORLDSTYLES.get(world, profile.getWorldStyle());
         random = new Random(world.getSeed());
         RandomSource randomSource = new LegacyRandomSource(world.getSeed());
@@ -81,6 +83,12 @@ public class DefaultDimensionInfo implements IDimensionInfo {
 
     @Override
     public WorldStyle getWorldStyle() {
+        // The assets can be rebuilt after a datapack reload
+        int generation = AssetRegistries.getGeneration();
+        if (generation != styleGeneration) {
+            style = AssetRegistries.WORLDSTYLES.get(world, profile.getWorldStyle());
+            styleGeneration = generation;
+        }
         return style;
     }
 
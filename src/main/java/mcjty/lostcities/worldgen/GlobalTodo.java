@@ -1,7 +1,10 @@
 package mcjty.lostcities.worldgen;
 
 import mcjty.lostcities.setup.Config;
+import mcjty.lostcities.varia.AdaptivePerformanceManager;
+import mcjty.lostcities.varia.ChunkCoord;
 import mcjty.lostcities.varia.TodoQueue;
+import mcjty.lostcities.varia.WorldgenEvents;
 import net.minecraft.core.BlockPos;
 import net.minecraft.resources.ResourceKey;
 import net.minecraft.server.level.ServerLevel;
@@ -43,7 +46,7 @@ public class GlobalTodo {
     }
 
     public void executeAndClearTodo(ServerLevel level) {
-        int todoSize = Config.TODO_QUEUE_SIZE.get();
+        int todoSize = AdaptivePerformanceManager.getTodoBudget(Config.TODO_QUEUE_SIZE.get());
 
         // @todo process chunks based on their distance to the player
         Set<ChunkPos> todoToRemove = new HashSet<>();
@@ -51,7 +54,15 @@ public class GlobalTodo {
         for (Map.Entry<ChunkPos, TodoQueues> entry : copy.entrySet()) {
             TodoQueues queues = entry.getValue();
             ChunkPos cp = entry.getKey();
-            todoSize -= queues.todo.forEach(todoSize, (pos, code) -> code.accept(level));
+            WorldgenEvents.TodoExecution event = new WorldgenEvents.TodoExecution();
+            event.begin();
+            int executed = queues.todo.forEach(todoSize, (pos, code) -> code.accept(level));
+            todoSize -= executed;
+            if (event.shouldCommit()) {
+                event.set(new ChunkCoord(level.dimension(), cp.x, cp.z), null);
+                event.executed = executed;
+                event.commit();
+            }
             if (queues.isEmpty()) {
                 todoToRemove.add(cp);
             }
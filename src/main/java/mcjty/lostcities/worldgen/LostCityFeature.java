@@ -5,6 +5,7 @@ import mcjty.lostcities.config.LostCityProfile;
 import mcjty.lostcities.config.ProfileSetup;
 import mcjty.lostcities.setup.Config;
 import mcjty.lostcities.setup.ForgeEventHandlers;
+import mcjty.lostcities.worldgen.lost.cityassets.AssetLifecycle;
 import mcjty.lostcities.worldgen.lost.cityassets.AssetRegistries;
 import net.minecraft.core.Holder;
 import net.minecraft.resources.ResourceKey;
@@ -58,6 +59,7 @@ public class LostCityFeature extends Feature<NoneFeatureConfiguration> {
                 int chunkX = center.x;
                 int chunkZ = center.z;
                 diminfo.setWorld(level);
+                AssetLifecycle.ensureLoaded(level);
                 try {
                     diminfo.getFeature().generate(region, region.getChunk(chunkX, chunkZ));
                 } catch (Exception e) {
@@ -15,36 +15,29 @@ import mcjty.lostcities.worldgen.lost.cityassets.*;
 import mcjty.lostcities.worldgen.lost.regassets.data.*;
 import net.minecraft.core.BlockPos;
 import net.minecraft.core.Holder;
-import net.minecraft.core.registries.Registries;
 import net.minecraft.nbt.CompoundTag;
 import net.minecraft.nbt.NbtOps;
-import net.minecraft.resources.ResourceKey;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.server.level.ServerChunkCache;
 import net.minecraft.server.level.WorldGenRegion;
 import net.minecraft.tags.BiomeTags;
 import net.minecraft.tags.BlockTags;
-import net.minecraft.tags.StructureTags;
 import net.minecraft.util.RandomSource;
 import net.minecraft.world.level.*;
 import net.minecraft.world.level.biome.Biome;
 import net.minecraft.world.level.block.*;
 import net.minecraft.world.level.block.entity.BlockEntity;
-import net.minecraft.world.level.block.entity.BlockEntityType;
 import net.minecraft.world.level.block.entity.RandomizableContainerBlockEntity;
 import net.minecraft.world.level.block.state.BlockState;
 import net.minecraft.world.level.block.state.properties.EnumProperty;
 import net.minecraft.world.level.block.state.properties.RailShape;
 import net.minecraft.world.level.chunk.ChunkAccess;
 import net.minecraft.world.level.chunk.ChunkGenerator;
-import net.minecraft.world.level.chunk.ChunkStatus;
 import net.minecraft.world.level.levelgen.Heightmap;
 import net.minecraft.world.level.levelgen.NoiseBasedChunkGenerator;
 import net.minecraft.world.level.levelgen.NoiseGeneratorSettings;
 import net.minecraft.world.level.levelgen.RandomState;
-import net.minecraft.world.level.levelgen.structure.Structure;
 import net.minecraftforge.common.MinecraftForge;
-import net.minecraftforge.registries.ForgeRegistries;
 import org.apache.commons.lang3.tuple.Pair;
 
 import javax.annotation.Nonnull;
@@ -57,7 +50,9 @@ public class LostCityTerrainFeature {
 
     public static final int FLOORHEIGHT = 6;
 
-    private static int gSeed = 123456789;
+    // State of fastrand128() for every worldgen thread. It is reseeded from the chunk position at the
+    // start of every chunk so that the random blocks don't depend on which thread generates the chunk
+    private static final ThreadLocal<int[]> FAST_RAND_SEED = ThreadLocal.withInitial(() -> new int[] { 123456789 });
     public final BlockState air;
     private final BlockState hardAir;
 
@@ -69,6 +64,17 @@ public class LostCityTerrainFeature {
     private Set<BlockState> statesNeedingLightingUpdate = null;
     private Set<BlockState> statesNeedingPoiUpdate = null;
 
+    // Flags per block state, indexed by the id of the state. Calculated the first time a state is seen
+    // (a value of 0 means not calculated yet)
+    private static final int FLAG_KNOWN = 1;
+    private static final int FLAG_ROTATABLE = 2;
+    private static final int FLAG_RAIL = 4;
+    private static final int FLAG_NEEDS_TODO = 8;
+    private static final int FLAG_NEEDS_LIGHTING = 16;
+    private static final int FLAG_NEEDS_POI = 32;
+    private static final int FLAGS_SPECIAL = FLAG_NEEDS_TODO | FLAG_NEEDS_LIGHTING | FLAG_NEEDS_POI;
+    private final int[] stateFlags = new int[Block.BLOCK_STATE_REGISTRY.size()];
+
     private char street;
 
     private final NoiseGeneratorPerlin rubbleNoise;
@@ -93,7 +99,6 @@ public class LostCityTerrainFeature {
 
     private final Map<ChunkCoord, ChunkHeightmap> cachedHeightmaps = new HashMap<>();
     private final Statistics statistics = new Statistics();
-    private final Map<Block, BlockEntityType> typeCache = new HashMap<>();
 
     public LostCityTerrainFeature(IDimensionInfo provider, LostCityProfile profile, RandomSource rand) {
         this.provider = provider;
@@ -227,6 +232,39 @@ public class LostCityTerrainFeature {
         return statesNeedingPoiUpdate;
     }
 
+    private int getStateFlags(BlockState state) {
+        int id = Block.getId(state);
+        if (id < 0 || id >= stateFlags.length) {
+            return calculateStateFlags(state);
+        }
+        int flags = stateFlags[id];
+        if (flags == 0) {
+            flags = calculateStateFlags(state);
+            stateFlags[id] = flags;
+        }
+        return flags;
+    }
+
+    private int calculateStateFlags(BlockState state) {
+        int flags = FLAG_KNOWN;
+        if (Tools.hasTag(state.getBlock(), LostTags.ROTATABLE_TAG)) {
+            flags |= FLAG_ROTATABLE;
+        }
+        if (getRailStates().contains(state)) {
+            flags |= FLAG_RAIL;
+        }
+        if (getStatesNeedingTodo().contains(state)) {
+            flags |= FLAG_NEEDS_TODO;
+        }
+        if (getStatesNeedingLightingUpdate().contains(state)) {
+            flags |= FLAG_NEEDS_LIGHTING;
+        }
+        if (getStatesNeedingPoiUpdate().contains(state)) {
+            flags |= FLAG_NEEDS_POI;
+        }
+        return flags;
+    }
+
     private static void addStates(Block block, Set<BlockState> set) {
         set.addAll(block.getStateDefinition().getPossibleStates());
     }
@@ -238,9 +276,14 @@ public class LostCityTerrainFeature {
         }
     }
 
+    public static void seedFastRand(long seed, int chunkX, int chunkZ) {
+        FAST_RAND_SEED.get()[0] = (int) PositionalRandom.hash(seed, chunkX, chunkZ, 128);
+    }
+
     public static int fastrand128() {
-        gSeed = (214013 * gSeed + 2531011);
-        return (gSeed >> 16) & 0x7F;
+        int[] seed = FAST_RAND_SEED.get();
+        seed[0] = 214013 * seed[0] + 2531011;
+        return (seed[0] >> 16) & 0x7F;
     }
 
     private boolean isVoid(int x, int z) {
@@ -254,6 +297,8 @@ public class LostCityTerrainFeature {
 
     public void generate(WorldGenRegion region, ChunkAccess chunk) {
         long start = System.currentTimeMillis();
+        WorldgenEvents.ChunkGeneration chunkEvent = new WorldgenEvents.ChunkGeneration();
+        chunkEvent.begin();
 
         LevelAccessor oldRegion = driver.getRegion();
         ChunkAccess oldChunk = driver.getPrimer();
@@ -264,6 +309,7 @@ public class LostCityTerrainFeature {
         int chunkZ = chunk.getPos().z;
 
         ChunkCoord coord = new ChunkCoord(provider.getType(), chunkX, chunkZ);
+        seedFastRand(provider.getSeed(), chunkX, chunkZ);
 
         ChunkHeightmap heightmap = getHeightmap(coord, provider.getWorld());
         BuildingInfo info = BuildingInfo.getBuildingInfo(coord, provider);
@@ -295,6 +341,7 @@ public class LostCityTerrainFeature {
 
         if (doCity) {
             doCityChunk(info, heightmap, chunk);
+            LocateIndex.record(info);
         } else {
             // We already have a prefilled core chunk (as generated from doCoreChunk)
             doNormalChunk(info, heightmap, avoidChunk);
@@ -341,8 +388,14 @@ public class LostCityTerrainFeature {
         LostCityEvent.PreExplosionEvent event = new LostCityEvent.PreExplosionEvent(provider.getWorld(), LostCities.lostCitiesImp, chunkX, chunkZ, driver.getPrimer());
         if (!MinecraftForge.EVENT_BUS.post(event)) {
             if (info.getDamageArea().hasExplosions()) {
+                WorldgenEvents.Damage damageEvent = new WorldgenEvents.Damage();
+                damageEvent.begin();
                 breakBlocksForDamageNew(chunkX, chunkZ, info);
                 fixAfterExplosion(info);
+                if (damageEvent.shouldCommit()) {
+                    damageEvent.set(coord, info.getBuildingType());
+                    damageEvent.commit();
+                }
             }
             generateDebris(info);
         }
@@ -353,6 +406,11 @@ public class LostCityTerrainFeature {
 
         long time = System.currentTimeMillis() - start;
         statistics.addTime(time);
+        if (chunkEvent.shouldCommit()) {
+            chunkEvent.set(coord, info.getBuildingType());
+            chunkEvent.city = doCity;
+            chunkEvent.commit();
+        }
     }
 
     public Statistics getStatistics() {
@@ -374,62 +432,23 @@ public class LostCityTerrainFeature {
     }
 
     private static AvoidChunk hasBlacklistedStructure(WorldGenLevel level, int chunkX, int chunkZ) {
-        boolean doAdjacent = Config.AVOID_VILLAGES_ADJACENT.get() || Config.AVOID_STRUCTURES_ADJACENT.get();
-        if (doAdjacent || Config.AVOID_VILLAGES.get() || Config.hasAvoidedStructures()) {
-            if (doAdjacent) {
-                boolean couldBeUnknown = false;
-                for (int dx = -1; dx <= 1; dx++) {
-                    for (int dz = -1; dz <= 1; dz++) {
-                        if (level.hasChunk(chunkX + dx, chunkZ + dz)) {
-                            ChunkAccess ch = level.getChunk(chunkX + dx, chunkZ + dx, ChunkStatus.STRUCTURE_REFERENCES);
-                            if (testBlacklistedStructure(level, ch, chunkX == 0 && chunkZ == 0)) {
-                                return (dx == 0 && dz == 0) ? AvoidChunk.YES : AvoidChunk.ADJACENT;
-                            }
-                        } else {
-                            couldBeUnknown = true;
-                        }
-                    }
-                    if (couldBeUnknown) {
-                        return AvoidChunk.NO;  // If we have unknown chunks we assume it is ok
-                    }
-                }
-            } else {
-                if (level.hasChunk(chunkX, chunkZ)) {
-                    ChunkAccess ch = level.getChunk(chunkX, chunkZ, ChunkStatus.STRUCTURE_REFERENCES);
-                    return testBlacklistedStructure(level, ch, true) ? AvoidChunk.YES : AvoidChunk.NO;
-                } else {
-                    return AvoidChunk.NO; // If we have unknown chunks we assume it is ok
-                }
+        boolean avoidVillages = Config.AVOID_VILLAGES.get();
+        boolean avoidVillagesAdjacent = avoidVillages && Config.AVOID_VILLAGES_ADJACENT.get();
+        boolean avoidStructuresAdjacent = Config.AVOID_STRUCTURES_ADJACENT.get();
+        boolean doAdjacent = Config.AVOID_VILLAGES_ADJACENT.get() || avoidStructuresAdjacent;
+        if (doAdjacent || avoidVillages || Config.hasAvoidedStructures()) {
+            int centerMask = (avoidVillages ? StructureIndex.VILLAGE : 0) | StructureIndex.AVOIDED;
+            int adjacentMask = (avoidVillagesAdjacent ? StructureIndex.VILLAGE : 0) | (avoidStructuresAdjacent ? StructureIndex.AVOIDED : 0);
+            int distance = StructureIndex.findClosest(level, chunkX, chunkZ, doAdjacent ? 1 : 0, centerMask, adjacentMask);
+            if (distance == 0) {
+                return AvoidChunk.YES;
+            } else if (distance > 0) {
+                return AvoidChunk.ADJACENT;
             }
         }
         return AvoidChunk.NO;
     }
 
-    private static boolean testBlacklistedStructure(WorldGenLevel level, ChunkAccess ch, boolean center) {
-        if (ch.hasAnyStructureReferences()) {
-            var structures = level.registryAccess().registryOrThrow(Registries.STRUCTURE);
-            var references = ch.getAllReferences();
-            for (var entry : references.entrySet()) {
-                if (!entry.getValue().isEmpty()) {
-                    Optional<ResourceKey<Structure>> key = structures.getResourceKey(entry.getKey());
-                    if (Config.AVOID_VILLAGES.get()) {
-                        if (center || Config.AVOID_VILLAGES_ADJACENT.get()) {
-                            if (key.map(k -> structures.getHolderOrThrow(k).is(StructureTags.VILLAGE)).orElse(false)) {
-                                return true;
-                            }
-                        }
-                    }
-                    if (center || Config.AVOID_STRUCTURES_ADJACENT.get()) {
-                        if (Config.isAvoidedStructure(key.get().location())) {
-                            return true;
-                        }
-                    }
-                }
-            }
-        }
-        return false;
-    }
-
 
     private void fixTorches(BuildingInfo info) {
         List<BlockPos> torches = info.getTorchTodo();
@@ -588,25 +607,18 @@ public class LostCityTerrainFeature {
         }
     }
 
-    private static final Random RANDOMIZED_OFFSET = new Random();
-
+    // These give the same values as a Random seeded with the same seed (so existing worlds don't change)
+    // but without sharing a Random between threads
     public static int getRandomizedOffset(int chunkX, int chunkZ, int min, int max) {
-        RANDOMIZED_OFFSET.setSeed(chunkZ * 256203221L + chunkX * 899809363L);
-        return RANDOMIZED_OFFSET.nextInt(max - min + 1) + min;
+        return PositionalRandom.javaNextInt(chunkZ * 256203221L + chunkX * 899809363L, max - min + 1) + min;
     }
 
-    private static final Random RANDOMIZED_OFFSET_L1 = new Random();
-
     public static int getHeightOffsetL1(int chunkX, int chunkZ) {
-        RANDOMIZED_OFFSET_L1.setSeed(chunkZ * 341873128712L + chunkX * 132897987541L);
-        return RANDOMIZED_OFFSET_L1.nextInt(5);
+        return PositionalRandom.javaNextInt(chunkZ * 341873128712L + chunkX * 132897987541L, 5);
     }
 
-    private static final Random RANDOMIZED_OFFSET_L2 = new Random();
-
     public static int getHeightOffsetL2(int chunkX, int chunkZ) {
-        RANDOMIZED_OFFSET_L2.setSeed(chunkZ * 132897987541L + chunkX * 341873128712L);
-        return RANDOMIZED_OFFSET_L2.nextInt(5);
+        return PositionalRandom.javaNextInt(chunkZ * 132897987541L + chunkX * 341873128712L, 5);
     }
 
     /*
@@ -1464,10 +1476,8 @@ public class LostCityTerrainFeature {
         return height;
     }
 
-    private static final Random VEGETATION_RAND = new Random();
-
     private void generateRandomVegetation(BuildingInfo info, int height) {
-        VEGETATION_RAND.setSeed(provider.getSeed() * 377 + info.coord.chunkZ() * 341873128712L + info.coord.chunkX() * 132897987541L);
+        Random vegetationRand = new Random(provider.getSeed() * 377 + info.coord.chunkZ() * 341873128712L + info.coord.chunkX() * 132897987541L);
 
         if (info.getXmin().hasBuilding) {
             for (int x = 0; x < info.profile.THICKNESS_OF_RANDOM_LEAFBLOCKS; x++) {
@@ -1480,7 +1490,7 @@ public class LostCityTerrainFeature {
                     }
                     float v = Math.min(.8f, info.profile.CHANCE_OF_RANDOM_LEAFBLOCKS * (info.profile.THICKNESS_OF_RANDOM_LEAFBLOCKS + 1 - x));
                     int cnt = 0;
-                    while (VEGETATION_RAND.nextFloat() < v && cnt < 30) {
+                    while (vegetationRand.nextFloat() < v && cnt < 30) {
                         driver.add(getRandomLeaf(info, info.getCompiledPalette()));
                         cnt++;
                     }
@@ -1498,7 +1508,7 @@ public class LostCityTerrainFeature {
                     }
                     float v = Math.min(.8f, info.profile.CHANCE_OF_RANDOM_LEAFBLOCKS * (x - 14 + info.profile.THICKNESS_OF_RANDOM_LEAFBLOCKS));
                     int cnt = 0;
-                    while (VEGETATION_RAND.nextFloat() < v && cnt < 30) {
+                    while (vegetationRand.nextFloat() < v && cnt < 30) {
                         driver.add(getRandomLeaf(info, info.getCompiledPalette()));
                         cnt++;
                     }
@@ -1516,7 +1526,7 @@ public class LostCityTerrainFeature {
                     }
                     float v = Math.min(.8f, info.profile.CHANCE_OF_RANDOM_LEAFBLOCKS * (info.profile.THICKNESS_OF_RANDOM_LEAFBLOCKS + 1 - z));
                     int cnt = 0;
-                    while (VEGETATION_RAND.nextFloat() < v && cnt < 30) {
+                    while (vegetationRand.nextFloat() < v && cnt < 30) {
                         driver.add(getRandomLeaf(info, info.getCompiledPalette()));
                         cnt++;
                     }
@@ -1534,7 +1544,7 @@ public class LostCityTerrainFeature {
                     }
                     float v = info.profile.CHANCE_OF_RANDOM_LEAFBLOCKS * (z - 14 + info.profile.THICKNESS_OF_RANDOM_LEAFBLOCKS);
                     int cnt = 0;
-                    while (VEGETATION_RAND.nextFloat() < v && cnt < 30) {
+                    while (vegetationRand.nextFloat() < v && cnt < 30) {
                         driver.add(getRandomLeaf(info, info.getCompiledPalette()));
                         cnt++;
                     }
@@ -1724,6 +1734,8 @@ public class LostCityTerrainFeature {
     public int generatePart(BuildingInfo info, IBuildingPart part,
                              Transform transform,
                              int ox, int oy, int oz, HardAirSetting airWaterLevel) {
+        WorldgenEvents.PartPlacement partEvent = new WorldgenEvents.PartPlacement();
+        partEvent.begin();
         if (profile.EDITMODE) {
             EditModeData.getData().addPartData(info.coord, oy, part.getName());
         }
@@ -1733,27 +1745,48 @@ public class LostCityTerrainFeature {
 
         for (int x = 0; x < part.getXSize(); x++) {
             for (int z = 0; z < part.getZSize(); z++) {
-                char[] vs = part.getVSlice(x, z);
-                if (vs != null) {
+                List<ColumnRun> runs = part.getColumnRuns(x, z);
+                if (runs != null) {
                     int rx = ox + transform.rotateX(x, z);
                     int rz = oz + transform.rotateZ(x, z);
-                    driver.current(rx, oy, rz);
-                    int len = vs.length;
-                    for (int y = 0; y < len; y++) {
-                        char c = vs[y];
-                        BlockState b = compiledPalette.get(c);
-                        if (b == null) {
-                            throw new RuntimeException("Could not find entry '" + c + "' in the palette for part '" + part.getName() + "'!");
-                        }
-
+                    for (ColumnRun run : runs) {
+                        char c = run.c();
                         Palette.Info inf = compiledPalette.getInfo(c);
+                        // Random palette entries give a different block every time so these are done block by block
+                        boolean random = compiledPalette.isRandom(c);
+                        BlockState runState = random ? null : getPartBlock(compiledPalette, c, transform, part);
 
-                        if (transform != Transform.ROTATE_NONE) {
-                            b = transformBlockState(transform, b);
+                        // We don't replace the world where the part is empty (air)
+                        if (runState == air) {
+                            continue;
                         }
+                        driver.current(rx, oy + run.start(), rz);
 
-                        // We don't replace the world where the part is empty (air)
-                        if (b != air) {
+                        // Blocks without special handling are placed as a complete run
+                        if (runState != null) {
+                            if (runState == liquid) {
+                                driver.addRange(info.profile.AVOID_WATER ? air : liquid, run.length());
+                                continue;
+                            }
+                            if (runState == hardAir) {
+                                if (airWaterLevel == HardAirSetting.AIR) {
+                                    driver.addRange(air, run.length());
+                                    continue;
+                                }
+                            } else if (inf == null && (getStateFlags(runState) & FLAGS_SPECIAL) == 0) {
+                                driver.addRange(runState, run.length());
+                                continue;
+                            }
+                        }
+
+                        int end = run.start() + run.length();
+                        for (int y = run.start(); y < end; y++) {
+                            BlockState b = random ? getPartBlock(compiledPalette, c, transform, part) : runState;
+                            if (b == air) {
+                                driver.incY();
+                                continue;
+                            }
+                            int flags = getStateFlags(b);
                             if (b == liquid) {
                                 if (info.profile.AVOID_WATER) {
                                     b = air;
@@ -1788,7 +1821,7 @@ public class LostCityTerrainFeature {
                                 } else if (inf.tag() != null) {
                                     b = handleBlockEntity(info, oy, provider.getWorld(), rx, rz, y, b, inf);
                                 }
-                            } else if (getStatesNeedingPoiUpdate().contains(b)) {
+                            } else if ((flags & FLAG_NEEDS_POI) != 0) {
                                 // If this block has POI data we need to delay setting it
                                 BlockState finalB = b;
                                 BlockPos p = driver.getCurrentCopy();
@@ -1798,22 +1831,37 @@ public class LostCityTerrainFeature {
                                     }
                                 });
                                 b = Blocks.DIRT.defaultBlockState();
-                            } else if (getStatesNeedingLightingUpdate().contains(b)) {
+                            } else if ((flags & FLAG_NEEDS_LIGHTING) != 0) {
                                 updateNeeded(info, driver.getCurrentCopy(), Block.UPDATE_CLIENTS);
-                            } else if (getStatesNeedingTodo().contains(b)) {
+                            } else if ((flags & FLAG_NEEDS_TODO) != 0) {
                                 b = handleTodo(info, oy, provider.getWorld(), rx, rz, y, b);
                             }
                             driver.add(b);
-                        } else {
-                            driver.incY();
                         }
                     }
                 }
             }
         }
+        if (partEvent.shouldCommit()) {
+            partEvent.set(info.coord, info.getBuildingType());
+            partEvent.part = part.getName();
+            partEvent.y = oy;
+            partEvent.commit();
+        }
         return oy + part.getSliceCount();
     }
 
+    private BlockState getPartBlock(CompiledPalette compiledPalette, char c, Transform transform, IBuildingPart part) {
+        BlockState b = compiledPalette.get(c);
+        if (b == null) {
+            throw new RuntimeException("Could not find entry '" + c + "' in the palette for part '" + part.getName() + "'!");
+        }
+        if (transform != Transform.ROTATE_NONE) {
+            b = transformBlockState(transform, b);
+        }
+        return b;
+    }
+
     public CompiledPalette computePalette(BuildingInfo info, IBuildingPart part) {
         CompiledPalette compiledPalette = info.getCompiledPalette();
         // Cache the combined palette?
@@ -1824,20 +1872,9 @@ public class LostCityTerrainFeature {
         return compiledPalette;
     }
 
-    private BlockEntityType getTypeForBlock(BlockState state) {
-        return typeCache.computeIfAbsent(state.getBlock(), block -> {
-            for (BlockEntityType<?> type : ForgeRegistries.BLOCK_ENTITY_TYPES.getValues()) {
-                if (type.isValid(state)) {
-                    return type;
-                }
-            }
-            return null;
-        });
-    }
-
     private BlockState handleBlockEntity(BuildingInfo info, int oy, WorldGenLevel world, int rx, int rz, int y, BlockState b, Palette.Info inf) {
         BlockPos pos = info.getRelativePos(rx, oy + y, rz);
-        BlockEntityType type = getTypeForBlock(b);
+        BlockEntityTypeIndex.Entry type = BlockEntityTypeIndex.get(b.getBlock());
         if (type == null) {
             ModSetup.getLogger().warn("Error getting type for block: " + b.getBlock());
             return b;
@@ -1846,7 +1883,7 @@ public class LostCityTerrainFeature {
         tag.putInt("x", pos.getX());
         tag.putInt("y", pos.getY());
         tag.putInt("z", pos.getZ());
-        tag.putString("id", ForgeRegistries.BLOCK_ENTITY_TYPES.getKey(type).toString());
+        tag.putString("id", type.id());
         world.getChunk(pos).setBlockEntityNbt(tag);
         if (b.getBlock() == Blocks.COMMAND_BLOCK) {
             info.addPostTodo(pos, () -> {
@@ -1928,9 +1965,10 @@ public class LostCityTerrainFeature {
     }
 
     private BlockState transformBlockState(Transform transform, BlockState b) {
-        if (Tools.hasTag(b.getBlock(), LostTags.ROTATABLE_TAG)) {
+        int flags = getStateFlags(b);
+        if ((flags & FLAG_ROTATABLE) != 0) {
             b = b.rotate(transform.getMcRotation());
-        } else if (getRailStates().contains(b)) {
+        } else if ((flags & FLAG_RAIL) != 0) {
             EnumProperty<RailShape> shapeProperty;
             if (b.getBlock() == Blocks.RAIL) {
                 shapeProperty = RailBlock.SHAPE;
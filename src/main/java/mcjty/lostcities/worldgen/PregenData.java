@@ -0,0 +1,116 @@
+package mcjty.lostcities.worldgen;
+
+import mcjty.lostcities.varia.WorldTools;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.Tag;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.saveddata.SavedData;
+import net.minecraft.world.level.storage.DimensionDataStorage;
+
+import javax.annotation.Nonnull;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Persistent progress of all running pregeneration jobs (at most one per dimension)
+ */
+public class PregenData extends SavedData {
+
+    public static final String NAME = "LostCityPregenData";
+
+    public static class Job {
+        private final int centerX;
+        private final int centerZ;
+        private final int radius;
+        private int index;
+
+        public Job(int centerX, int centerZ, int radius, int index) {
+            this.centerX = centerX;
+            this.centerZ = centerZ;
+            this.radius = radius;
+            this.index = index;
+        }
+
+        public int getCenterX() {
+            return centerX;
+        }
+
+        public int getCenterZ() {
+            return centerZ;
+        }
+
+        public int getRadius() {
+            return radius;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public int getTotal() {
+            return (radius * 2 + 1) * (radius * 2 + 1);
+        }
+    }
+
+    private final Map<ResourceKey<Level>, Job> jobs = new HashMap<>();
+
+    @Nonnull
+    public static PregenData getData() {
+        ServerLevel overworld = WorldTools.getOverworld();
+        DimensionDataStorage storage = overworld.getDataStorage();
+        return storage.computeIfAbsent(PregenData::new, PregenData::new, NAME);
+    }
+
+    public PregenData() {
+    }
+
+    public PregenData(CompoundTag nbt) {
+        ListTag data = nbt.getList("jobs", Tag.TAG_COMPOUND);
+        for (Tag t : data) {
+            CompoundTag jobTag = (CompoundTag) t;
+            ResourceKey<Level> level = ResourceKey.create(Registries.DIMENSION, new ResourceLocation(jobTag.getString("level")));
+            jobs.put(level, new Job(jobTag.getInt("x"), jobTag.getInt("z"), jobTag.getInt("radius"), jobTag.getInt("index")));
+        }
+    }
+
+    public Job getJob(ResourceKey<Level> level) {
+        return jobs.get(level);
+    }
+
+    public void startJob(ResourceKey<Level> level, Job job) {
+        jobs.put(level, job);
+        setDirty();
+    }
+
+    public void stopJob(ResourceKey<Level> level) {
+        if (jobs.remove(level) != null) {
+            setDirty();
+        }
+    }
+
+    public void setIndex(Job job, int index) {
+        job.index = index;
+        setDirty();
+    }
+
+    @Override
+    public CompoundTag save(CompoundTag tag) {
+        ListTag data = new ListTag();
+        jobs.forEach((level, job) -> {
+            CompoundTag jobTag = new CompoundTag();
+            jobTag.putString("level", level.location().toString());
+            jobTag.putInt("x", job.centerX);
+            jobTag.putInt("z", job.centerZ);
+            jobTag.putInt("radius", job.radius);
+            jobTag.putInt("index", job.index);
+            data.add(jobTag);
+        });
+        tag.put("jobs", data);
+        return tag;
+    }
+}
@@ -0,0 +1,243 @@
+package mcjty.lostcities.worldgen;
+
+import mcjty.lostcities.LostCities;
+import mcjty.lostcities.setup.Registration;
+import mcjty.lostcities.varia.AdaptivePerformanceManager;
+import mcjty.lostcities.varia.ChunkCoord;
+import mcjty.lostcities.varia.Statistics;
+import mcjty.lostcities.worldgen.lost.City;
+import com.mojang.datafixers.util.Either;
+import net.minecraft.Util;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.server.level.ChunkHolder;
+import net.minecraft.server.level.ServerChunkCache;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.TicketType;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.chunk.ChunkAccess;
+import net.minecraft.world.level.chunk.ChunkStatus;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Generates all chunks in a square around a center ahead of time. The generation order is calculated
+ * on a background thread. Chunks are then requested from the chunk system with a region ticket and
+ * generated asynchronously by the normal worldgen workers. Only a limited number of chunks is in
+ * flight at any time and no new chunks are requested if the server is already lagging. Chunks
+ * belonging to cities are done first (city center by city center) so that the BuildingInfo and
+ * characteristics caches of neighbouring chunks are warm when the worldgen workers get to them.
+ * Progress is persisted in PregenData
+ */
+public class Pregenerator {
+
+    // Don't pregenerate if the average tick takes longer than this (in ms)
+    public static final float MAX_MSPT = 40.0f;
+    // Maximum time to spend on requesting chunks every tick (in ms)
+    public static final float MAX_BUDGET = 20.0f;
+    // Maximum number of chunks that are requested but not generated yet
+    public static final int MAX_IN_FLIGHT = 32;
+    // Interval (in ms) at which progress is logged
+    public static final long LOG_INTERVAL = 10000;
+
+    private static final TicketType<ChunkPos> PREGEN_TICKET = TicketType.create("lostcities_pregen", Comparator.comparingLong(ChunkPos::toLong));
+
+    private record InFlight(int index, ChunkPos pos, long startTime,
+                            CompletableFuture<Either<ChunkAccess, ChunkHolder.ChunkLoadingFailure>> future) {
+    }
+
+    private static class Progress {
+        private final CompletableFuture<List<ChunkPos>> order;
+        private final Deque<InFlight> inFlight = new ArrayDeque<>();
+        private final Statistics generateStatistics = new Statistics();
+        private final long startTime = System.currentTimeMillis();
+        private long lastLog = startTime;
+        private int generated = 0;
+        private int next = -1;
+
+        private Progress(CompletableFuture<List<ChunkPos>> order) {
+            this.order = order;
+        }
+
+        private float getChunksPerSecond() {
+            long time = System.currentTimeMillis() - startTime;
+            return time <= 0 ? 0 : generated * 1000.0f / time;
+        }
+    }
+
+    private static final Map<ResourceKey<Level>, Progress> RUNNING = new HashMap<>();
+
+    public static void cleanCache() {
+        RUNNING.clear();
+    }
+
+    public static void start(ServerLevel level, ChunkPos center, int radius) {
+        PregenData.getData().startJob(level.dimension(), new PregenData.Job(center.x, center.z, radius, 0));
+        release(level, RUNNING.remove(level.dimension()));
+    }
+
+    public static boolean stop(ServerLevel level) {
+        release(level, RUNNING.remove(level.dimension()));
+        PregenData data = PregenData.getData();
+        if (data.getJob(level.dimension()) == null) {
+            return false;
+        }
+        data.stopJob(level.dimension());
+        return true;
+    }
+
+    public static List<String> getStatus(ServerLevel level) {
+        List<String> status = new ArrayList<>();
+        PregenData.Job job = PregenData.getData().getJob(level.dimension());
+        if (job == null) {
+            return status;
+        }
+        status.add("Pregen: " + job.getIndex() + "/" + job.getTotal() + " chunks around " + (job.getCenterX() << 4) + "," + (job.getCenterZ() << 4));
+        Progress progress = RUNNING.get(level.dimension());
+        if (progress != null) {
+            status.add(String.format("Speed: %.1f chunks/sec", progress.getChunksPerSecond()));
+            status.add(String.format("Chunk generation: %.2fms (max %.2fms)", progress.generateStatistics.getAverageTime() / 1000.0f, progress.generateStatistics.getMaxTime() / 1000.0f));
+        }
+        IDimensionInfo dimInfo = Registration.LOSTCITY_FEATURE.get().getDimensionInfo(level);
+        if (dimInfo != null) {
+            status.add("Lost Cities generation: " + dimInfo.getFeature().getStatistics().getAverageTime() + "ms");
+        }
+        return status;
+    }
+
+    public static void tick(ServerLevel level) {
+        PregenData data = PregenData.getData();
+        PregenData.Job job = data.getJob(level.dimension());
+        if (job == null) {
+            return;
+        }
+        IDimensionInfo dimInfo = Registration.LOSTCITY_FEATURE.get().getDimensionInfo(level);
+        if (dimInfo == null) {
+            LostCities.getLogger().warn("Stopping pregeneration in {}: not a Lost Cities dimension", level.dimension().location());
+            stop(level);
+            return;
+        }
+
+        Progress progress = RUNNING.computeIfAbsent(level.dimension(),
+                k -> new Progress(CompletableFuture.supplyAsync(() -> calculateOrder(job, dimInfo), Util.backgroundExecutor())));
+        if (!progress.order.isDone()) {
+            return;
+        }
+        if (progress.order.isCompletedExceptionally()) {
+            LostCities.getLogger().error("Stopping pregeneration in {}: could not calculate the order", level.dimension().location());
+            stop(level);
+            return;
+        }
+        List<ChunkPos> order = progress.order.join();
+        if (progress.next < 0) {
+            progress.next = job.getIndex();
+        }
+
+        ServerChunkCache chunkSource = level.getChunkSource();
+        collectFinished(chunkSource, progress);
+
+        float mspt = level.getServer().getAverageTickTime();
+        if (AdaptivePerformanceManager.allowsBackgroundWork() && mspt <= MAX_MSPT) {
+            long budget = (long) (Math.min(MAX_BUDGET, MAX_MSPT - mspt) * 1000000L);
+            long start = System.nanoTime();
+            while (progress.next < order.size() && progress.inFlight.size() < MAX_IN_FLIGHT && System.nanoTime() - start < budget) {
+                ChunkPos pos = order.get(progress.next);
+                // The ticket keeps the chunk loaded until it is fully generated. getChunkFuture doesn't block
+                chunkSource.addRegionTicket(PREGEN_TICKET, pos, 0, pos);
+                progress.inFlight.add(new InFlight(progress.next, pos, System.nanoTime(), chunkSource.getChunkFuture(pos.x, pos.z, ChunkStatus.FULL, true)));
+                progress.next++;
+            }
+        }
+
+        // Everything before the oldest chunk that is still in flight is done
+        int index = progress.inFlight.isEmpty() ? progress.next : progress.inFlight.peekFirst().index();
+        data.setIndex(job, index);
+
+        if (index >= order.size()) {
+            LostCities.getLogger().info("Pregeneration of {} chunks in {} done ({} chunks/sec)", job.getTotal(), level.dimension().location(),
+                    String.format("%.1f", progress.getChunksPerSecond()));
+            stop(level);
+        } else if (System.currentTimeMillis() - progress.lastLog > LOG_INTERVAL) {
+            progress.lastLog = System.currentTimeMillis();
+            LostCities.getLogger().info("Pregeneration in {}: {}/{} chunks ({} chunks/sec)", level.dimension().location(), index, job.getTotal(),
+                    String.format("%.1f", progress.getChunksPerSecond()));
+        }
+    }
+
+    private static void collectFinished(ServerChunkCache chunkSource, Progress progress) {
+        Iterator<InFlight> iterator = progress.inFlight.iterator();
+        while (iterator.hasNext()) {
+            InFlight flight = iterator.next();
+            if (flight.future().isDone()) {
+                iterator.remove();
+                chunkSource.removeRegionTicket(PREGEN_TICKET, flight.pos(), 0, flight.pos());
+                if (flight.future().isCompletedExceptionally()) {
+                    LostCities.getLogger().warn("Pregeneration of chunk {} failed", flight.pos());
+                } else {
+                    flight.future().join().ifRight(failure -> LostCities.getLogger().warn("Pregeneration of chunk {} failed: {}", flight.pos(), failure));
+                }
+                progress.generateStatistics.addTime((System.nanoTime() - flight.startTime()) / 1000);
+                progress.generated++;
+            }
+        }
+    }
+
+    private static void release(ServerLevel level, Progress progress) {
+        if (progress != null) {
+            for (InFlight flight : progress.inFlight) {
+                level.getChunkSource().removeRegionTicket(PREGEN_TICKET, flight.pos(), 0, flight.pos());
+            }
+            progress.inFlight.clear();
+        }
+    }
+
+    /**
+     * All chunks of the job in the order in which they will be generated. First the chunks of every
+     * city (closest city center first) and then everything else in a spiral. This order only depends
+     * on the seed so it can be recalculated after a restart. This runs on a background thread
+     */
+    private static List<ChunkPos> calculateOrder(PregenData.Job job, IDimensionInfo provider) {
+        int radius = job.getRadius();
+        int size = radius * 2 + 1;
+        int minX = job.getCenterX() - radius;
+        int minZ = job.getCenterZ() - radius;
+        boolean[] added = new boolean[size * size];
+        List<ChunkPos> order = new ArrayList<>(size * size);
+
+        // Abuse BlockPos as ChunkPos
+        BlockPos center = new BlockPos(job.getCenterX(), 0, job.getCenterZ());
+        List<ChunkCoord> cityCenters = new ArrayList<>();
+        for (BlockPos.MutableBlockPos mpos : BlockPos.spiralAround(center, radius, Direction.EAST, Direction.SOUTH)) {
+            ChunkCoord coord = new ChunkCoord(provider.getType(), mpos.getX(), mpos.getZ());
+            if (City.isCityCenter(coord, provider)) {
+                cityCenters.add(coord);
+            }
+        }
+
+        for (ChunkCoord cityCenter : cityCenters) {
+            int cityRadius = ((int) City.getCityRadius(cityCenter, provider) + 15) / 16;
+            for (BlockPos.MutableBlockPos mpos : BlockPos.spiralAround(new BlockPos(cityCenter.chunkX(), 0, cityCenter.chunkZ()), cityRadius, Direction.EAST, Direction.SOUTH)) {
+                add(order, added, size, minX, minZ, mpos.getX(), mpos.getZ());
+            }
+        }
+        for (BlockPos.MutableBlockPos mpos : BlockPos.spiralAround(center, radius, Direction.EAST, Direction.SOUTH)) {
+            add(order, added, size, minX, minZ, mpos.getX(), mpos.getZ());
+        }
+        return order;
+    }
+
+    private static void add(List<ChunkPos> order, boolean[] added, int size, int minX, int minZ, int chunkX, int chunkZ) {
+        int x = chunkX - minX;
+        int z = chunkZ - minZ;
+        if (x < 0 || x >= size || z < 0 || z >= size) {
+            return;
+        }
+        if (!added[z * size + x]) {
+            added[z * size + x] = true;
+            order.add(new ChunkPos(chunkX, chunkZ));
+        }
+    }
+}
@@ -2,6 +2,7 @@ package mcjty.lostcities.worldgen.gen;
 
 import mcjty.lostcities.config.LostCityProfile;
 import mcjty.lostcities.varia.ChunkCoord;
+import mcjty.lostcities.varia.PerformanceOptimizer;
 import mcjty.lostcities.varia.QualityRandom;
 import mcjty.lostcities.worldgen.ChunkDriver;
 import mcjty.lostcities.worldgen.ChunkHeightmap;
@@ -16,6 +17,7 @@ import net.minecraft.core.registries.Registries;
 import net.minecraft.resources.ResourceKey;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.server.level.ServerChunkCache;
+import net.minecraft.world.level.Level;
 import net.minecraft.world.level.biome.Biome;
 import net.minecraft.world.level.block.Blocks;
 import net.minecraft.world.level.block.state.BlockState;
@@ -26,6 +28,23 @@ import java.util.List;
 import java.util.Random;
 
 public class Scattered {
+
+    // The placement of a scattered reference in an area. The reference is part of the key because it
+    // is selected using the biome of the chunk that is being generated
+    private record PlacementKey(ResourceKey<Level> dimension, int areaX, int areaZ, String reference) {
+    }
+
+    private record Placement(boolean valid, int minHeight, int maxHeight, int avgHeight) {
+        private static final Placement INVALID = new Placement(false, 0, 0, 0);
+    }
+
+    private static final PerformanceOptimizer.LRUCache<PlacementKey, Placement> PLACEMENTS =
+        new PerformanceOptimizer.LRUCache<>("ScatteredPlacement", 4096);
+
+    public static void cleanCache() {
+        PLACEMENTS.clear();
+    }
+
     public static boolean avoidScattered(LostCityTerrainFeature feature, BuildingInfo info) {
         if (info.isCity) {
             return true;
@@ -45,12 +64,15 @@ public class Scattered {
         int ax = (chunkX + 2000000) / scatteredSettings.getAreasize();
         int az = (chunkZ + 2000000) / scatteredSettings.getAreasize();
 
-        QualityRandom scatteredRandom = new QualityRandom(provider.getSeed() + ax * 5564338337L + az * 25564337621L);
+        long scatteredSeed = provider.getSeed() + ax * 5564338337L + az * 25564337621L;
 
-        if (scatteredRandom.nextFloat() >= (scatteredSettings.getChance() * provider.getProfile().SCATTERED_CHANCE_MULTIPLIER)) {
+        // Most areas don't have a scattered structure so test that without allocating
+        if (QualityRandom.firstFloat(scatteredSeed) >= (scatteredSettings.getChance() * provider.getProfile().SCATTERED_CHANCE_MULTIPLIER)) {
             // No scattered structure in this area
             return;
         }
+        QualityRandom scatteredRandom = new QualityRandom(scatteredSeed);
+        scatteredRandom.nextFloat();
 
         // Find the right type of scattered asset for this area
         ScatteredReference reference = selectRandomScattered(feature, info, scatteredSettings, scatteredRandom);
@@ -81,7 +103,53 @@ public class Scattered {
             return;
         }
 
-        // First test the conditions for all the relevant chunks (does this need to be cached?)
+        // The conditions for all the chunks of the building are tested once per area and shared
+        // by all the chunks of that area
+        PlacementKey key = new PlacementKey(provider.getType(), ax, az, reference.getName());
+        Placement placement = PLACEMENTS.getOrCompute(key, feature, (k, f) -> calculatePlacement(f, reference, tlChunkX, tlChunkZ, w, h));
+        if (!placement.valid()) {
+            return;
+        }
+        int minheight = placement.minHeight();
+        int maxheight = placement.maxHeight();
+        int avgheight = placement.avgHeight();
+
+        // We need to generate a part of the building
+        if (multiBuilding == null) {
+            // A single building
+            List<String> buildings = scattered.getBuildings();
+            if (buildings == null) {
+                throw new RuntimeException("Missing buildings for scattered '" + reference.getName() + "'!");
+            }
+            String buildingName;
+            if (buildings.size() == 1) {
+                buildingName = buildings.get(0);
+            } else {
+                buildingName = buildings.get(scatteredRandom.nextInt(buildings.size()));
+            }
+            Building building = AssetRegistries.BUILDINGS.getOrThrow(provider.getWorld(), buildingName);
+            int lowestLevel = handleScatteredTerrain(feature, scattered, info.coord, heightmap);
+            if (lowestLevel < -4000) {
+                LostCityProfile profile = feature.provider.getProfile();
+                if (profile.isCavern()) {
+                    lowestLevel = profile.GROUNDLEVEL;
+                } else {
+                    lowestLevel = provider.getWorld().getMinBuildHeight() + 2;  // @todo is this right?
+                }
+            }
+            generateScatteredBuilding(feature, info, building, scatteredRandom, lowestLevel, scattered.getTerrainfix());
+        } else {
+            int lowestLevel = handleScatteredTerrainMulti(feature, scattered, info.coord, minheight, maxheight, avgheight);
+            int relx = chunkX - tlChunkX;
+            int relz = chunkZ - tlChunkZ;
+            String buildingName = multiBuilding.getBuilding(relx, relz);
+            Building building = AssetRegistries.BUILDINGS.getOrThrow(provider.getWorld(), buildingName);
+            generateScatteredBuilding(feature, info, building, scatteredRandom, lowestLevel, scattered.getTerrainfix());
+        }
+    }
+
+    private static Placement calculatePlacement(LostCityTerrainFeature feature, ScatteredReference reference, int tlChunkX, int tlChunkZ, int w, int h) {
+        IDimensionInfo provider = feature.provider;
         int minheight = Integer.MAX_VALUE;
         int maxheight = Integer.MIN_VALUE;
         int avgheight = 0;
@@ -89,18 +157,18 @@ public class Scattered {
             for (int z = tlChunkZ; z < tlChunkZ + h; z++) {
                 ChunkCoord coord = new ChunkCoord(provider.getType(), x, z);
                 if (!isValidScatterBiome(feature, reference, coord)) {
-                    return;
+                    return Placement.INVALID;
                 }
                 BuildingInfo tinfo = BuildingInfo.getBuildingInfo(coord, provider);
                 if (avoidScattered(feature, tinfo)) {
-                    return;
+                    return Placement.INVALID;
                 }
                 if (reference.isNearHighway()) {
                     if (!Highway.hasHighway(coord.east(), provider, feature.profile) &&
                             !Highway.hasHighway(coord.west(), provider, feature.profile) &&
                             !Highway.hasHighway(coord.north(), provider, feature.profile) &&
                             !Highway.hasHighway(coord.south(), provider, feature.profile)) {
-                        return;
+                        return Placement.INVALID;
                     }
                 }
                 ChunkHeightmap hm = feature.getHeightmap(coord, provider.getWorld());
@@ -110,7 +178,7 @@ public class Scattered {
                     if (!(feature.profile.isDefault() || feature.profile.isCavern())) {
                         // We are in a world that can have void chunks. Check if this chunk is a void chunk
                         if (height <= feature.provider.getWorld().getMinBuildHeight() + 3) {
-                            return;
+                            return Placement.INVALID;
                         }
                     }
                 }
@@ -123,44 +191,12 @@ public class Scattered {
         if (reference.getMaxheightdiff() != null) {
             int diff = maxheight - minheight;
             if (diff > reference.getMaxheightdiff()) {
-                return;
+                return Placement.INVALID;
             }
         }
 
         avgheight /= w * h;
-
-        // We need to generate a part of the building
-        if (multiBuilding == null) {
-            // A single building
-            List<String> buildings = scattered.getBuildings();
-            if (buildings == null) {
-                throw new RuntimeException("Missing buildings for scattered '" + reference.getName() + "'!");
-            }
-            String buildingName;
-            if (buildings.size() == 1) {
-                buildingName = buildings.get(0);
-            } else {
-                buildingName = buildings.get(scatteredRandom.nextInt(buildings.size()));
-            }
-            Building building = AssetRegistries.BUILDINGS.getOrThrow(provider.getWorld(), buildingName);
-            int lowestLevel = handleScatteredTerrain(feature, scattered, info.coord, heightmap);
-            if (lowestLevel < -4000) {
-                LostCityProfile profile = feature.provider.getProfile();
-                if (profile.isCavern()) {
-                    lowestLevel = profile.GROUNDLEVEL;
-                } else {
-                    lowestLevel = provider.getWorld().getMinBuildHeight() + 2;  // @todo is this right?
-                }
-            }
-            generateScatteredBuilding(feature, info, building, scatteredRandom, lowestLevel, scattered.getTerrainfix());
-        } else {
-            int lowestLevel = handleScatteredTerrainMulti(feature, scattered, info.coord, minheight, maxheight, avgheight);
-            int relx = chunkX - tlChunkX;
-            int relz = chunkZ - tlChunkZ;
-            String buildingName = multiBuilding.getBuilding(relx, relz);
-            Building building = AssetRegistries.BUILDINGS.getOrThrow(provider.getWorld(), buildingName);
-            generateScatteredBuilding(feature, info, building, scatteredRandom, lowestLevel, scattered.getTerrainfix());
-        }
+        return new Placement(true, minheight, maxheight, avgheight);
     }
 
     @Nullable
@@ -22,6 +22,58 @@ import net.minecraft.world.level.chunk.ChunkGenerator;
 
 public class Spheres {
 
+    /**
+     * The shell of a sphere as vertical spans for the 16x16 columns of one chunk (indexed by
+     * (x << 4) + z). In a column the shell covers all blocks whose vertical distance to the center is
+     * between 'inner' and 'outer' (inclusive). Above 'outer' the column is outside the sphere. Columns
+     * outside the sphere are left at 0
+     */
+    private record ShellSpans(int[] inner, int[] outer) {
+
+        private static ShellSpans create(int radius, int centerx, int centerz) {
+            int sqradius = radius * radius;
+            int sqradiusOffset = (radius - 2) * (radius - 2);
+            int[] inner = new int[256];
+            int[] outer = new int[256];
+            for (int x = 0; x < 16; x++) {
+                int dxdx = (x - centerx) * (x - centerx);
+                for (int z = 0; z < 16; z++) {
+                    int sqdist = dxdx + (z - centerz) * (z - centerz);
+                    if (sqdist <= sqradius) {
+                        int idx = (x << 4) + z;
+                        outer[idx] = floorSqrt(sqradius - sqdist);
+                        int remaining = sqradiusOffset - sqdist;
+                        if (remaining > 0) {
+                            int s = floorSqrt(remaining);
+                            inner[idx] = s * s == remaining ? s : s + 1;
+                        }
+                    }
+                }
+            }
+            return new ShellSpans(inner, outer);
+        }
+
+        private static int floorSqrt(int v) {
+            int s = (int) Math.sqrt(v);
+            while (s * s > v) {
+                s--;
+            }
+            while ((s + 1) * (s + 1) <= v) {
+                s++;
+            }
+            return s;
+        }
+    }
+
+    /**
+     * Fill y1 up to and including y2. This goes through ChunkDriver.addRange so neighbouring
+     * blocks that connect (panes, walls, fences) are still updated like they are with add()
+     */
+    private static void fillSpan(ChunkDriver driver, int x, int z, int y1, int y2, BlockState state) {
+        driver.current(x, y1, z);
+        driver.addRange(state, y2 - y1 + 1);
+    }
+
     public static void generateSpheres(LostCityTerrainFeature feature, WorldGenRegion region, ChunkAccess chunk) {
         IDimensionInfo provider = feature.provider;
         LostCityProfile profile = feature.profile;
@@ -63,9 +115,6 @@ public class Spheres {
         ChunkDriver driver = feature.driver;
         LostCityProfile profile = feature.profile;
         BlockState air = Blocks.AIR.defaultBlockState();
-        double sqradius = radius * radius;
-        double sqradiusOffset = (radius - 2) * (radius - 2);
-        double sqradiusOuter = (radius + 2) * (radius + 2);
 
         int minY = Math.max(provider.getWorld().getMinBuildHeight(), centery - radius - 1);
         int maxY = Math.min(provider.getWorld().getMaxBuildHeight(), centery + radius + 1);
@@ -84,82 +133,81 @@ public class Spheres {
             }
         }
 
+        ShellSpans spans = ShellSpans.create(radius, centerx, centerz);
+        int sqradius = radius * radius;
+        int sqradiusOuter = (radius + 2) * (radius + 2);
         for (int x = 0; x < 16; x++) {
-            double dxdx = (x - centerx) * (x - centerx);
+            int dxdx = (x - centerx) * (x - centerx);
             for (int z = 0; z < 16; z++) {
-                double dzdz = (z - centerz) * (z - centerz);
-                int bottom = Integer.MAX_VALUE;
-                if (dxdx + dzdz <= sqradius) {
-                    driver.current(x, minY, z);
-                    for (int y = minY; y <= centery; y++) {
-                        double dydy = (y - centery) * (y - centery);
-                        double sqdist = dxdx + dydy + dzdz;
-                        if (sqdist <= sqradius && sqdist >= sqradiusOffset) {
-                            if (y < bottom) {
-                                bottom = y - 1;
-                            }
-                            driver.block(sideBlock);
-                        }
-                        driver.incY();
+                int dzdz = (z - centerz) * (z - centerz);
+                int sqdist = dxdx + dzdz;
+                if (sqdist <= sqradius) {
+                    int inner = spans.inner()[(x << 4) + z];
+                    int outer = spans.outer()[(x << 4) + z];
+                    // The shell below the center (inclusive)
+                    int bottom = Integer.MAX_VALUE;
+                    int low = Math.max(minY, centery - outer);
+                    int high = centery - inner;
+                    if (low <= high) {
+                        bottom = low - 1;
+                        fillSpan(driver, x, z, low, high, sideBlock);
                     }
-                    for (int y = centery + 1; y < maxY; y++) {
-                        double dydy = (y - centery) * (y - centery);
-                        double sqdist = dxdx + dydy + dzdz;
-                        if (sqdist <= sqradius) {
-                            if (sqdist >= sqradiusOffset) {
-                                driver.block(glass);
-                            }
-                        } else {
-                            // Optionally clear above the sphere
-                            int yy = y;
-                            if (profile.CITYSPHERE_CLEARABOVE > 0) {
-                                int mY = Math.min(provider.getWorld().getMaxBuildHeight(), y + profile.CITYSPHERE_CLEARABOVE);
-                                while (yy <= mY) {
-                                    driver.block(yy <= outerSeaLevel ? feature.liquid : air);
-                                    driver.incY();
-                                    yy++;
-                                }
+                    // The shell above the center
+                    low = centery + Math.max(1, inner);
+                    high = Math.min(maxY - 1, centery + outer);
+                    if (low <= high) {
+                        fillSpan(driver, x, z, low, high, glass);
+                    }
+                    int y = centery + outer + 1;
+                    if (y < maxY) {
+                        driver.current(x, y, z);
+                        // Optionally clear above the sphere
+                        int yy = y;
+                        if (profile.CITYSPHERE_CLEARABOVE > 0) {
+                            int mY = Math.min(provider.getWorld().getMaxBuildHeight(), y + profile.CITYSPHERE_CLEARABOVE);
+                            while (yy <= mY) {
+                                driver.block(yy <= outerSeaLevel ? feature.liquid : air);
+                                driver.incY();
+                                yy++;
                             }
-                            if (profile.CITYSPHERE_CLEARABOVE_UNTIL_AIR) {
-                                // Clear until we hit air
-                                while (driver.getBlock() != air) {
-                                    driver.block(yy <= outerSeaLevel ? feature.liquid : air);
-                                    driver.incY();
-                                    yy++;
-                                }
+                        }
+                        if (profile.CITYSPHERE_CLEARABOVE_UNTIL_AIR) {
+                            // Clear until we hit air
+                            while (driver.getBlock() != air) {
+                                driver.block(yy <= outerSeaLevel ? feature.liquid : air);
+                                driver.incY();
+                                yy++;
                             }
-                            // Optionall clear below the sphere
-                            yy = bottom;
-                            if (profile.CITYSPHERE_CLEARBELOW > 0 && bottom != Integer.MAX_VALUE) {
-                                driver.current(x, yy, z);
-                                int mY = Math.max(provider.getWorld().getMinBuildHeight(), bottom - profile.CITYSPHERE_CLEARBELOW);
-                                while (yy >= mY) {
-                                    driver.block(yy <= outerSeaLevel ? feature.liquid : air);
-                                    driver.decY();
-                                    yy--;
-                                }
+                        }
+                        // Optionall clear below the sphere
+                        yy = bottom;
+                        if (profile.CITYSPHERE_CLEARBELOW > 0 && bottom != Integer.MAX_VALUE) {
+                            driver.current(x, yy, z);
+                            int mY = Math.max(provider.getWorld().getMinBuildHeight(), bottom - profile.CITYSPHERE_CLEARBELOW);
+                            while (yy >= mY) {
+                                driver.block(yy <= outerSeaLevel ? feature.liquid : air);
+                                driver.decY();
+                                yy--;
                             }
-                            if (profile.CITYSPHERE_CLEARBELOW_UNTIL_AIR && bottom != Integer.MAX_VALUE) {
-                                // Clear until we hit air or go below build limit
-                                driver.current(x, yy, z);
-                                while (driver.getBlock() != (yy <= seaLevel ? feature.liquid : air) && yy > provider.getWorld().getMinBuildHeight()) {
-                                    driver.block(yy <= outerSeaLevel ? feature.liquid : air);
-                                    driver.decY();
-                                    yy--;
-                                }
+                        }
+                        if (profile.CITYSPHERE_CLEARBELOW_UNTIL_AIR && bottom != Integer.MAX_VALUE) {
+                            // Clear until we hit air or go below build limit
+                            driver.current(x, yy, z);
+                            while (driver.getBlock() != (yy <= seaLevel ? feature.liquid : air) && yy > provider.getWorld().getMinBuildHeight()) {
+                                driver.block(yy <= outerSeaLevel ? feature.liquid : air);
+                                driver.decY();
+                                yy--;
                             }
-                            break;
                         }
-                        driver.incY();
                     }
-                } else if (dxdx + dzdz <= sqradiusOuter) {
+                } else if (sqdist <= sqradiusOuter) {
                     // If we are in a space profile then we clear the sphere area too
                     if (profile.isFloating() || profile.isSpace()) {
-                        driver.current(x, minY, z);
-                        for (int y = minY; y < maxY; y++) {
-                            driver.block(y <= outerSeaLevel ? feature.liquid : air);
-                            driver.incY();
+                        int split = Math.min(maxY - 1, outerSeaLevel);
+                        if (split >= minY) {
+                            fillSpan(driver, x, z, minY, split, feature.liquid);
                         }
+                        fillSpan(driver, x, z, Math.max(minY, split + 1), maxY - 1, air);
                     }
                 }
             }
@@ -10,9 +10,7 @@ import mcjty.lostcities.worldgen.lost.cityassets.StuffObject;
 import mcjty.lostcities.worldgen.lost.regassets.StuffSettingsRE;
 import mcjty.lostcities.worldgen.lost.regassets.data.BlockMatcher;
 import mcjty.lostcities.worldgen.lost.regassets.data.ResourceLocationMatcher;
-import net.minecraft.core.BlockPos;
 import net.minecraft.util.RandomSource;
-import net.minecraft.world.level.WorldGenLevel;
 import net.minecraft.world.level.block.state.BlockState;
 
 import java.util.List;
@@ -23,8 +21,10 @@ public class Stuff {
         feature.rand.setSeed(info.coord.chunkX() * 2570174657L + info.coord.chunkZ() * 101754695981L);
         BiomeInfo biome = BiomeInfo.getBiomeInfo(feature.provider, info.coord);
         CompiledPalette palette = info.getCompiledPalette();
+        // Shared by all stuff of this chunk. It only scans the chunk if some stuff needs it
+        SurfaceIndex index = new SurfaceIndex(feature.driver, feature.provider.getWorld(), feature.air);
         for (String tag : info.getCityStyle().getStuffTags()) {
-            List<StuffObject> stuffs = AssetRegistries.STUFF_BY_TAG.get(tag);
+            List<StuffObject> stuffs = AssetRegistries.getStuffByTag(tag);
             if (stuffs != null) {
                 for (StuffObject stuff : stuffs) {
                     StuffSettingsRE settings = stuff.getSettings();
@@ -33,7 +33,7 @@ public class Stuff {
                         ResourceLocationMatcher buildingMatcher = settings.getBuildingMatcher();
                         if (buildingMatcher.isAny() || buildingMatcher.test(info.buildingType.getId())) {
                             if (settings.getBiomeMatcher().test(biome.getMainBiome())) {
-                                actuallyGenerateStuff(feature, info, settings, palette, inBuilding == Boolean.TRUE);
+                                actuallyGenerateStuff(feature, info, settings, palette, inBuilding == Boolean.TRUE, index);
                             }
                         }
                     }
@@ -49,9 +49,9 @@ public class Stuff {
         return matcher.test(driver.getBlock(x, y, z));
     }
 
-    private static void actuallyGenerateStuff(LostCityTerrainFeature feature, BuildingInfo info, StuffSettingsRE settings, CompiledPalette palette, boolean inBuilding) {
+    private static void actuallyGenerateStuff(LostCityTerrainFeature feature, BuildingInfo info, StuffSettingsRE settings, CompiledPalette palette, boolean inBuilding,
+                                              SurfaceIndex index) {
         ChunkDriver driver = feature.driver;
-        WorldGenLevel level = info.provider.getWorld();
         int attempts = settings.getAttempts();
         Integer minheight = settings.getMinheight();
         Integer maxheight = settings.getMaxheight();
@@ -72,15 +72,52 @@ public class Stuff {
         int maxcount = settings.getMaxcount();
         RandomSource rand = feature.rand;
         int count = rand.nextInt(maxcount - mincount) + mincount;
+        String blocks = settings.getColumn();
+        BlockMatcher blockMatcher = settings.getBlockMatcher();
+        BlockMatcher upperMatcher = settings.getUpperBlockMatcher();
+        Boolean isSeesky = settings.isSeesky();
+
+        // Stuff that has to see the sky and stand on a block can only go on the surface of a column so
+        // for that we sample the surface columns directly instead of probing random positions. To keep
+        // the same density as random probing we first decide if one of the attempts would have found a
+        // candidate (every attempt hits one with a chance of candidates / volume) and only then pick one.
+        // All other stuff is placed with random probing like before
+        boolean onSurface = isSeesky == Boolean.TRUE && !blockMatcher.isAny();
+        int[] columns = null;
+        int columnCount = 0;
+        float chance = 0;
+        if (onSurface) {
+            columns = new int[256];
+            columnCount = index.getSurfaceColumns(columns, minheight, maxheight);
+            float hit = (float) columnCount / (16 * 16 * (maxheight - minheight));
+            chance = 1.0f - (float) Math.pow(1.0f - hit, attempts);
+        }
         for (int j = 0; j < count; j++) {
+            if (onSurface && (columnCount == 0 || rand.nextFloat() >= chance)) {
+                continue;
+            }
             for (int i = 0; i < attempts; i++) {
-                int x = rand.nextInt(16);
-                int y = rand.nextInt(maxheight - minheight) + minheight;
-                int z = rand.nextInt(16);
-                String blocks = settings.getColumn();
-                if (testBlock(driver, settings.getBlockMatcher(), x, y-1, z) && testBlock(driver, settings.getUpperBlockMatcher(), x, y + blocks.length(), z)) {
-                    Boolean isSeesky = settings.isSeesky();
-                    if (isSeesky == null || isSeesky == level.canSeeSky(info.getRelativePos(x, y, z))) {
+                int x;
+                int y;
+                int z;
+                if (onSurface) {
+                    if (columnCount == 0) {
+                        break;
+                    }
+                    int c = rand.nextInt(columnCount);
+                    int column = columns[c];
+                    x = column >> 4;
+                    z = column & 0xf;
+                    y = index.getSurface(x, z);
+                    // This column is either used now or not suitable for this stuff
+                    columns[c] = columns[--columnCount];
+                } else {
+                    x = rand.nextInt(16);
+                    y = rand.nextInt(maxheight - minheight) + minheight;
+                    z = rand.nextInt(16);
+                }
+                if (testBlock(driver, blockMatcher, x, y-1, z) && testBlock(driver, upperMatcher, x, y + blocks.length(), z)) {
+                    if (isSeesky == null || isSeesky == index.canSeeSky(x, y, z)) {
                         // Iterate over all characters of the block
                         boolean ok = true;
                         for (int k = 0; k < blocks.length(); k++) {
@@ -95,6 +132,7 @@ public class Stuff {
                                 BlockState block = palette.get(blocks.charAt(k));
                                 driver.add(block);
                             }
+                            index.placed(x, y, z, blocks.length());
                             break;
                         }
                     }
@@ -0,0 +1,92 @@
+package mcjty.lostcities.worldgen.gen;
+
+import mcjty.lostcities.worldgen.ChunkDriver;
+import net.minecraft.world.level.WorldGenLevel;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.levelgen.Heightmap;
+
+/**
+ * Sky exposure of a single chunk for stuff placement. For every column this is the lowest y that
+ * has no non-air block above it (so the position on top of the highest block). It is found with a
+ * top-down scan through the ChunkDriver that starts at the highest of the world surface heightmap
+ * and the heightmap of the section cache. Usually that is a single read per column, only where Lost
+ * Cities cleared terrain the scan walks down through the cleared air.
+ * The surface of a column is also the only place where stuff that has to see the sky and stand on
+ * a block can go so these positions are used as candidates for that kind of stuff.
+ * The scan is done the first time it is needed and the index is updated when stuff is placed
+ */
+public class SurfaceIndex {
+
+    private final ChunkDriver driver;
+    private final WorldGenLevel level;
+    private final BlockState air;
+    private int[] skyHeight = null;
+
+    public SurfaceIndex(ChunkDriver driver, WorldGenLevel level, BlockState air) {
+        this.driver = driver;
+        this.level = level;
+        this.air = air;
+    }
+
+    private int[] getSkyHeight() {
+        if (skyHeight == null) {
+            skyHeight = new int[256];
+            int baseX = driver.getPrimer().getPos().getMinBlockX();
+            int baseZ = driver.getPrimer().getPos().getMinBlockZ();
+            int minY = level.getMinBuildHeight();
+            for (int x = 0; x < 16; x++) {
+                for (int z = 0; z < 16; z++) {
+                    int y = level.getHeight(Heightmap.Types.WORLD_SURFACE, baseX + x, baseZ + z);
+                    int cached = driver.getCachedHeight(x, z);
+                    if (cached != Integer.MIN_VALUE) {
+                        y = Math.max(y, cached + 1);
+                    }
+                    while (y > minY && driver.getBlock(x, y - 1, z) == air) {
+                        y--;
+                    }
+                    skyHeight[(x << 4) + z] = y;
+                }
+            }
+        }
+        return skyHeight;
+    }
+
+    /**
+     * The lowest y in this column (relative coordinates) that can see the sky
+     */
+    public int getSurface(int x, int z) {
+        return getSkyHeight()[(x << 4) + z];
+    }
+
+    /**
+     * True if there is no non-air block above this position (relative coordinates)
+     */
+    public boolean canSeeSky(int x, int y, int z) {
+        return y >= getSurface(x, z);
+    }
+
+    /**
+     * Fill 'columns' with the columns (x << 4 | z) that have their surface in the range minY
+     * (inclusive) to maxY (exclusive) and return how many there are
+     */
+    public int getSurfaceColumns(int[] columns, int minY, int maxY) {
+        int[] heights = getSkyHeight();
+        int count = 0;
+        for (int i = 0; i < 256; i++) {
+            if (heights[i] >= minY && heights[i] < maxY) {
+                columns[count++] = i;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Update the index after a column of 'length' blocks was placed at this position
+     */
+    public void placed(int x, int y, int z, int length) {
+        if (skyHeight != null) {
+            int idx = (x << 4) + z;
+            skyHeight[idx] = Math.max(skyHeight[idx], y + length);
+        }
+    }
+}
@@ -145,9 +145,9 @@ public class BuildingInfo implements ILostChunkInfo {
     private static final PerformanceOptimizer.LRUCache<ChunkCoord, BuildingInfo> BUILDING_INFO_MAP = 
         new PerformanceOptimizer.LRUCache<>("BuildingInfo");
     private static final PerformanceOptimizer.LRUCache<ChunkCoord, LostChunkCharacteristics> CITY_INFO_MAP = 
-        new PerformanceOptimizer.LRUCache<>("CityInfo");
+        new PerformanceOptimizer.LRUCache<>("CityInfo", 16384);
     private static final PerformanceOptimizer.LRUCache<ChunkCoord, Integer> CITY_LEVEL_CACHE = 
-        new PerformanceOptimizer.LRUCache<>("CityLevel");
+        new PerformanceOptimizer.LRUCache<>("CityLevel", 16384);
 
     public void addTorchTodo(BlockPos index) {
         torchTodo.add(index);
@@ -301,122 +301,120 @@ public class BuildingInfo implements ILostChunkInfo {
     }
 
     public static synchronized LostChunkCharacteristics getChunkCharacteristicsGui(ChunkCoord key, IDimensionInfo provider) {
-        if (CITY_INFO_MAP.containsKey(key)) {
-            return CITY_INFO_MAP.get(key);
-        } else {
-            int chunkX = key.chunkX();
-            int chunkZ = key.chunkZ();
-            LostCityProfile profile = getProfile(key, provider);
-            LostChunkCharacteristics characteristics = new LostChunkCharacteristics();
+        return CITY_INFO_MAP.getOrCompute(key, provider, BuildingInfo::calculateChunkCharacteristicsGui);
+    }
 
-            characteristics.isCity = isCityRaw(key, provider, profile);
-            characteristics.cityLevel = getCityLevel(key, provider);
-            Random rand = getBuildingRandom(chunkX, chunkZ, provider.getSeed());
-            characteristics.couldHaveBuilding = characteristics.isCity && rand.nextFloat() < profile.BUILDING_CHANCE;
-            CITY_INFO_MAP.put(key, characteristics);
-            return characteristics;
-        }
+    private static LostChunkCharacteristics calculateChunkCharacteristicsGui(ChunkCoord key, IDimensionInfo provider) {
+        int chunkX = key.chunkX();
+        int chunkZ = key.chunkZ();
+        LostCityProfile profile = getProfile(key, provider);
+        LostChunkCharacteristics characteristics = new LostChunkCharacteristics();
+
+        characteristics.isCity = isCityRaw(key, provider, profile);
+        characteristics.cityLevel = getCityLevel(key, provider);
+        Random rand = getBuildingRandom(chunkX, chunkZ, provider.getSeed());
+        characteristics.couldHaveBuilding = characteristics.isCity && rand.nextFloat() < profile.BUILDING_CHANCE;
+        return characteristics;
     }
 
     public static synchronized LostChunkCharacteristics getChunkCharacteristics(ChunkCoord coord, IDimensionInfo provider) {
-        if (CITY_INFO_MAP.containsKey(coord)) {
-            return CITY_INFO_MAP.get(coord);
-        } else {
-            int chunkX = coord.chunkX();
-            int chunkZ = coord.chunkZ();
-            LostCityProfile profile = getProfile(coord, provider);
-            LostChunkCharacteristics characteristics = new LostChunkCharacteristics();
+        return CITY_INFO_MAP.getOrCompute(coord, provider, BuildingInfo::calculateChunkCharacteristics);
+    }
 
-            WorldGenLevel world = provider.getWorld();
-            characteristics.isCity = isCityRaw(coord, provider, profile);
+    private static LostChunkCharacteristics calculateChunkCharacteristics(ChunkCoord coord, IDimensionInfo provider) {
+        int chunkX = coord.chunkX();
+        int chunkZ = coord.chunkZ();
+        LostCityProfile profile = getProfile(coord, provider);
+        LostChunkCharacteristics characteristics = new LostChunkCharacteristics();
 
-            if (!characteristics.isCity) {
-                characteristics.multiPos = MultiPos.SINGLE;
-                characteristics.multiBuilding = null;
-            } else {
-                initMultiBuildingSection(characteristics, coord, provider, profile);
-            }
+        WorldGenLevel world = provider.getWorld();
+        characteristics.isCity = isCityRaw(coord, provider, profile);
 
-            if (characteristics.multiPos.isSingle()) {
-                characteristics.cityLevel = getCityLevel(coord, provider);
-            } else {
-                characteristics.cityLevel = profile.MULTI_USE_CORNER ? getTopLeftCityLevel(characteristics, coord, provider) : getAverageCityLevel(characteristics, coord, provider);
-            }
-            Random rand = getBuildingRandom(chunkX, chunkZ, provider.getSeed());
-            characteristics.couldHaveBuilding = characteristics.isCity && checkBuildingPossibility(coord, provider, profile, characteristics.multiPos, characteristics.cityLevel, rand);
-            if ((profile.isSpace() || profile.isSpheres()) && characteristics.multiPos.isSingle()) {
-                // Minimize cities at the edge of the city in an orb
-                float dist = CitySphere.getRelativeDistanceToCityCenter(coord, provider);
-                if (dist > .7f) {
-                    characteristics.couldHaveBuilding = false;
-                }
+        if (!characteristics.isCity) {
+            characteristics.multiPos = MultiPos.SINGLE;
+            characteristics.multiBuilding = null;
+        } else {
+            initMultiBuildingSection(characteristics, coord, provider, profile);
+        }
+
+        if (characteristics.multiPos.isSingle()) {
+            characteristics.cityLevel = getCityLevel(coord, provider);
+        } else {
+            characteristics.cityLevel = profile.MULTI_USE_CORNER ? getTopLeftCityLevel(characteristics, coord, provider) : getAverageCityLevel(characteristics, coord, provider);
+        }
+        Random rand = getBuildingRandom(chunkX, chunkZ, provider.getSeed());
+        characteristics.couldHaveBuilding = characteristics.isCity && checkBuildingPossibility(coord, provider, profile, characteristics.multiPos, characteristics.cityLevel, rand);
+        if ((profile.isSpace() || profile.isSpheres()) && characteristics.multiPos.isSingle()) {
+            // Minimize cities at the edge of the city in an orb
+            float dist = CitySphere.getRelativeDistanceToCityCenter(coord, provider);
+            if (dist > .7f) {
+                characteristics.couldHaveBuilding = false;
             }
+        }
 
-            CityStyle cityStyle;
-            // If this is a street we find other chunks connected to this and pick the cityStyle
-            // that represents the majority. This is to prevent streets from switching style randomly if two
-            // different styled cities mix
-            if (characteristics.isCity && !characteristics.couldHaveBuilding) {
-                Counter<String> counter = new Counter<>();
-                for (int cx = -1; cx <= 1; cx++) {
-                    for (int cz = -1; cz <= 1; cz++) {
-                        ChunkCoord key = coord.offset(cx, cz);
-                        cityStyle = City.getCityStyle(key, provider, profile);
-                        counter.add(cityStyle.getName());
-                        if (cx == 0 && cz == 0) {
-                            counter.add(cityStyle.getName());   // Add this chunk again for a bias
-                        }
+        CityStyle cityStyle;
+        // If this is a street we find other chunks connected to this and pick the cityStyle
+        // that represents the majority. This is to prevent streets from switching style randomly if two
+        // different styled cities mix
+        if (characteristics.isCity && !characteristics.couldHaveBuilding) {
+            Counter<String> counter = new Counter<>();
+            for (int cx = -1; cx <= 1; cx++) {
+                for (int cz = -1; cz <= 1; cz++) {
+                    ChunkCoord key = coord.offset(cx, cz);
+                    cityStyle = City.getCityStyle(key, provider, profile);
+                    counter.add(cityStyle.getName());
+                    if (cx == 0 && cz == 0) {
+                        counter.add(cityStyle.getName());   // Add this chunk again for a bias
                     }
                 }
-                cityStyle = AssetRegistries.CITYSTYLES.get(world, counter.getMostOccuring());
-            } else {
-                cityStyle = City.getCityStyle(coord, provider, profile);
             }
-            characteristics.cityStyle = cityStyle;
+            cityStyle = AssetRegistries.CITYSTYLES.get(world, counter.getMostOccuring());
+        } else {
+            cityStyle = City.getCityStyle(coord, provider, profile);
+        }
+        characteristics.cityStyle = cityStyle;
 
-            if (characteristics.multiPos.isMulti() && !characteristics.multiPos.isTopLeft()) {
-                LostChunkCharacteristics topleft = getTopLeftCityInfo(characteristics, coord, provider);
+        if (characteristics.multiPos.isMulti() && !characteristics.multiPos.isTopLeft()) {
+            LostChunkCharacteristics topleft = getTopLeftCityInfo(characteristics, coord, provider);
 //                characteristics.multiBuilding = topleft.multiBuilding;
-                if (characteristics.multiBuilding != null) {
-                    String b = characteristics.multiBuilding.getBuilding(characteristics.multiPos.x(), characteristics.multiPos.z());
-                    characteristics.buildingType = AssetRegistries.BUILDINGS.getOrThrow(world, b);
-                } else {
-                    // @todo is this even possible?
-                    characteristics.buildingType = topleft.buildingType;
-                    if (characteristics.buildingType == null) {
-                        throw new RuntimeException("Topleft building type is not set!");
-                    }
-                }
+            if (characteristics.multiBuilding != null) {
+                String b = characteristics.multiBuilding.getBuilding(characteristics.multiPos.x(), characteristics.multiPos.z());
+                characteristics.buildingType = AssetRegistries.BUILDINGS.getOrThrow(world, b);
             } else {
-                PredefinedBuilding predefinedBuilding = City.getPredefinedBuildingAtTopLeft(world, coord);
-                if (characteristics.multiPos.isTopLeft()) {
+                // @todo is this even possible?
+                characteristics.buildingType = topleft.buildingType;
+                if (characteristics.buildingType == null) {
+                    throw new RuntimeException("Topleft building type is not set!");
+                }
+            }
+        } else {
+            PredefinedBuilding predefinedBuilding = City.getPredefinedBuildingAtTopLeft(world, coord);
+            if (characteristics.multiPos.isTopLeft()) {
 //                    String name = cityStyle.getRandomMultiBuilding(rand);
 //                    if (predefinedBuilding != null) {
 //                        name = predefinedBuilding.building();
 //                    }
 //                    characteristics.multiBuilding = AssetRegistries.MULTI_BUILDINGS.get(world, name);
-                    String b = characteristics.multiBuilding.getBuilding(0, 0);
-                    characteristics.buildingType = AssetRegistries.BUILDINGS.getOrThrow(world, b);
-                } else {
+                String b = characteristics.multiBuilding.getBuilding(0, 0);
+                characteristics.buildingType = AssetRegistries.BUILDINGS.getOrThrow(world, b);
+            } else {
 //                    characteristics.multiBuilding = null;
-                    String name = cityStyle.getRandomBuilding(rand, coord);
-                    if (predefinedBuilding != null) {
-                        name = predefinedBuilding.building();
-                    }
-                    if (name == null) {
-                        throw new RuntimeException("Invalid building for multibuilding!");
-                    }
-                    characteristics.buildingType = AssetRegistries.BUILDINGS.getOrThrow(world, name);
+                String name = cityStyle.getRandomBuilding(rand, coord);
+                if (predefinedBuilding != null) {
+                    name = predefinedBuilding.building();
+                }
+                if (name == null) {
+                    throw new RuntimeException("Invalid building for multibuilding!");
                 }
+                characteristics.buildingType = AssetRegistries.BUILDINGS.getOrThrow(world, name);
             }
+        }
 
-            LostCityEvent.CharacteristicsEvent event = new LostCityEvent.CharacteristicsEvent(world, LostCities.lostCitiesImp,
-                    chunkX, chunkZ, characteristics);
-            MinecraftForge.EVENT_BUS.post(event);
+        LostCityEvent.CharacteristicsEvent event = new LostCityEvent.CharacteristicsEvent(world, LostCities.lostCitiesImp,
+                chunkX, chunkZ, characteristics);
+        MinecraftForge.EVENT_BUS.post(event);
 
-            CITY_INFO_MAP.put(coord, characteristics);
-            return characteristics;
-        }
+        return characteristics;
     }
 
     // Change city status
@@ -610,12 +608,7 @@ public class BuildingInfo implements ILostChunkInfo {
     }
 
     public static synchronized BuildingInfo getBuildingInfo(ChunkCoord key, IDimensionInfo provider) {
-        if (BUILDING_INFO_MAP.containsKey(key)) {
-            return BUILDING_INFO_MAP.get(key);
-        }
-        BuildingInfo info = new BuildingInfo(key, provider);
-        BUILDING_INFO_MAP.put(key, info);
-        return info;
+        return BUILDING_INFO_MAP.getOrCompute(key, provider, BuildingInfo::new);
     }
 
     /**
@@ -1082,9 +1075,10 @@ public class BuildingInfo implements ILostChunkInfo {
      * This function uses its own cache.
      */
     public static synchronized int getCityLevel(ChunkCoord key, IDimensionInfo provider) {
-        if (CITY_LEVEL_CACHE.containsKey(key)) {
-            return CITY_LEVEL_CACHE.get(key);
-        }
+        return CITY_LEVEL_CACHE.getOrCompute(key, provider, BuildingInfo::calculateCityLevel);
+    }
+
+    private static int calculateCityLevel(ChunkCoord key, IDimensionInfo provider) {
         int result;
         if ((provider.getProfile().isSpace() || provider.getProfile().isVoidSpheres())) {
             result = getCityLevelSpace(key, provider);
@@ -1095,7 +1089,6 @@ public class BuildingInfo implements ILostChunkInfo {
         } else {
             result = getCityLevelNormal(key, provider, provider.getProfile());
         }
-        CITY_LEVEL_CACHE.put(key, result);
         return result;
     }
 
@@ -4,6 +4,7 @@ import mcjty.lostcities.config.LostCityProfile;
 import mcjty.lostcities.varia.ChunkCoord;
 import mcjty.lostcities.varia.Tools;
 import mcjty.lostcities.varia.PerformanceOptimizer;
+import mcjty.lostcities.varia.PositionalRandom;
 import mcjty.lostcities.worldgen.ChunkHeightmap;
 import mcjty.lostcities.worldgen.IDimensionInfo;
 import mcjty.lostcities.worldgen.lost.cityassets.*;
@@ -24,133 +25,126 @@ public class City {
 
     record PreDefBuildingOffset(PredefinedBuilding building, int offsetX, int offsetZ) {}
 
-    private static Map<ChunkCoord, PredefinedCity> predefinedCityMap = null;
-    private static Map<ChunkCoord, PredefinedBuilding> predefinedBuildingMap = null;
-    private static Map<ChunkCoord, PredefinedStreet> predefinedStreetMap = null;
+    /**
+     * Immutable index of all predefined cities, buildings and streets. This is built once (after the
+     * assets are loaded) and then published through a volatile field so lookups from the worldgen
+     * threads never lock and never see a half built map
+     */
+    private record Predefined(Map<ChunkCoord, PredefinedCity> cities,
+                              Map<ChunkCoord, PredefinedBuilding> buildings,
+                              Map<ChunkCoord, PredefinedStreet> streets,
+                              Map<ChunkCoord, PreDefBuildingOffset> occupiedBuildings) {
+        boolean isEmpty() {
+            return cities.isEmpty();
+        }
+    }
+
+    private static volatile Predefined predefined = null;
 
     // If cityChance == -1 then this is used to control where cities are
     private static final PerformanceOptimizer.LRUCache<ResourceKey<Level>, CityRarityMap> CITY_RARITY_MAP = 
-        new PerformanceOptimizer.LRUCache<>("CityRarity");
+        new PerformanceOptimizer.LRUCache<>("CityRarity", 16);
     private static final PerformanceOptimizer.LRUCache<ChunkCoord, CityStyle> CITY_STYLE_MAP = 
         new PerformanceOptimizer.LRUCache<>("CityStyle");
-    private static Map<ChunkCoord, PreDefBuildingOffset> OCCUPIED_CHUNKS_BUILDING = null;
-    private static Map<ChunkCoord, PredefinedStreet> OCCUPIED_CHUNKS_STREET = null;
 
     public static void cleanCache() {
-        predefinedCityMap = null;
-        predefinedBuildingMap = null;
-        predefinedStreetMap = null;
+        predefined = null;
         CITY_RARITY_MAP.clear();
+        CityRarityMap.cleanCache();
         CITY_STYLE_MAP.clear();
-        OCCUPIED_CHUNKS_BUILDING = null;
-        OCCUPIED_CHUNKS_STREET = null;
     }
 
     public static CityRarityMap getCityRarityMap(ResourceKey<Level> level, long seed, double scale, double offset, double innerScale) {
-        CityRarityMap existing = CITY_RARITY_MAP.get(level);
-        if (existing != null) {
-            return existing;
+        return CITY_RARITY_MAP.getOrCompute(level, null, (l, p) -> new CityRarityMap(seed, scale, offset, innerScale));
+    }
+
+    private static Predefined getPredefined(CommonLevelAccessor level) {
+        Predefined p = predefined;
+        if (p == null) {
+            p = buildPredefined(level);
         }
-        CityRarityMap newMap = new CityRarityMap(seed, scale, offset, innerScale);
-        CITY_RARITY_MAP.put(level, newMap);
-        return newMap;
+        return p;
     }
 
-    public static PredefinedCity getPredefinedCity(CommonLevelAccessor level, ChunkCoord coord) {
+    private static synchronized Predefined buildPredefined(CommonLevelAccessor level) {
+        if (predefined != null) {
+            return predefined;
+        }
         AssetRegistries.loadPredefinedStuff(level);
-        if (predefinedCityMap == null) {
-            predefinedCityMap = new HashMap<>();
-            for (PredefinedCity city : AssetRegistries.PREDEFINED_CITIES.getIterable()) {
-                predefinedCityMap.put(new ChunkCoord(city.getDimension(), city.getChunkX(), city.getChunkZ()), city);
+        Map<ChunkCoord, PredefinedCity> cities = new HashMap<>();
+        Map<ChunkCoord, PredefinedBuilding> buildings = new HashMap<>();
+        Map<ChunkCoord, PredefinedStreet> streets = new HashMap<>();
+        Map<ChunkCoord, PreDefBuildingOffset> occupiedBuildings = new HashMap<>();
+        for (PredefinedCity city : AssetRegistries.PREDEFINED_CITIES.getIterable()) {
+            cities.put(new ChunkCoord(city.getDimension(), city.getChunkX(), city.getChunkZ()), city);
+            for (PredefinedBuilding building : city.getPredefinedBuildings()) {
+                ChunkCoord root = new ChunkCoord(city.getDimension(),
+                        city.getChunkX() + building.relChunkX(), city.getChunkZ() + building.relChunkZ());
+                buildings.put(root, building);
+                if (building.multi()) {
+                    MultiBuilding multiBuilding = AssetRegistries.MULTI_BUILDINGS.getOrThrow(level, building.building());
+                    // Add all occupied chunkcoords for the building to the occupied set
+                    for (int x = 0 ; x < multiBuilding.getDimX() ; x++) {
+                        for (int z = 0 ; z < multiBuilding.getDimZ() ; z++) {
+                            occupiedBuildings.put(root.offset(x, z), new PreDefBuildingOffset(building, x, z));
+                        }
+                    }
+                } else {
+                    occupiedBuildings.put(root, new PreDefBuildingOffset(building, 0, 0));
+                }
+            }
+            for (PredefinedStreet street : city.getPredefinedStreets()) {
+                streets.put(new ChunkCoord(city.getDimension(),
+                        city.getChunkX() + street.relChunkX(), city.getChunkZ() + street.relChunkZ()), street);
             }
         }
-        if (predefinedCityMap.isEmpty()) {
+        predefined = new Predefined(Map.copyOf(cities), Map.copyOf(buildings), Map.copyOf(streets), Map.copyOf(occupiedBuildings));
+        return predefined;
+    }
+
+    public static PredefinedCity getPredefinedCity(CommonLevelAccessor level, ChunkCoord coord) {
+        Predefined p = getPredefined(level);
+        if (p.isEmpty()) {
             return null;
         }
-        return predefinedCityMap.get(coord);
+        return p.cities().get(coord);
     }
 
     public static PredefinedBuilding getPredefinedBuildingAtTopLeft(CommonLevelAccessor level, ChunkCoord coord) {
-        calculateMap(level);
-        return predefinedBuildingMap.get(coord);
+        Predefined p = getPredefined(level);
+        if (p.isEmpty()) {
+            return null;
+        }
+        return p.buildings().get(coord);
     }
 
     public static PreDefBuildingOffset getPredefinedBuilding(IDimensionInfo provider, ChunkCoord coord) {
-        calculateOccupied(provider);
-        return OCCUPIED_CHUNKS_BUILDING.get(coord);
+        Predefined p = getPredefined(provider.getWorld());
+        if (p.isEmpty()) {
+            return null;
+        }
+        return p.occupiedBuildings().get(coord);
     }
 
     public static PredefinedStreet getPredefinedStreet(IDimensionInfo provider, ChunkCoord coord) {
-        calculateOccupied(provider);
-        return OCCUPIED_CHUNKS_STREET.get(coord);
+        return getPredefinedStreet(provider.getWorld(), coord);
     }
 
     // Return true if a chunk is occupied (by a predefined building or street)
     public static boolean isChunkOccupied(IDimensionInfo provider, ChunkCoord coord) {
-        calculateOccupied(provider);
-        return OCCUPIED_CHUNKS_BUILDING.containsKey(coord) || OCCUPIED_CHUNKS_STREET.containsKey(coord);
-    }
-
-    private static void calculateOccupied(IDimensionInfo provider) {
-        if (OCCUPIED_CHUNKS_BUILDING == null) {
-            OCCUPIED_CHUNKS_BUILDING = new HashMap<>();
-            calculateMap(provider.getWorld());
-            for (Map.Entry<ChunkCoord, PredefinedBuilding> entry : predefinedBuildingMap.entrySet()) {
-                PredefinedBuilding pb = entry.getValue();
-                ChunkCoord root = entry.getKey();
-                if (pb.multi()) {
-                    MultiBuilding building = AssetRegistries.MULTI_BUILDINGS.getOrThrow(provider.getWorld(), pb.building());
-                    // Add all occupied chunkcoords for the building to the occupied set
-                    for (int x = 0 ; x < building.getDimX() ; x++) {
-                        for (int z = 0 ; z < building.getDimZ() ; z++) {
-                            OCCUPIED_CHUNKS_BUILDING.put(root.offset(x, z), new PreDefBuildingOffset(pb, x, z));
-                        }
-                    }
-                } else {
-                    OCCUPIED_CHUNKS_BUILDING.put(root, new PreDefBuildingOffset(pb, 0, 0));
-                }
-            }
-        }
-        AssetRegistries.loadPredefinedStuff(provider.getWorld());
-        if (OCCUPIED_CHUNKS_STREET == null) {
-            OCCUPIED_CHUNKS_STREET = new HashMap<>();
-            for (PredefinedCity city : AssetRegistries.PREDEFINED_CITIES.getIterable()) {
-                for (PredefinedStreet street : city.getPredefinedStreets()) {
-                    OCCUPIED_CHUNKS_STREET.put(new ChunkCoord(city.getDimension(),
-                            city.getChunkX() + street.relChunkX(), city.getChunkZ() + street.relChunkZ()), street);
-                }
-            }
-        }
-    }
-
-    private static void calculateMap(CommonLevelAccessor level) {
-        AssetRegistries.loadPredefinedStuff(level);
-        if (predefinedBuildingMap == null) {
-            predefinedBuildingMap = new HashMap<>();
-            for (PredefinedCity city : AssetRegistries.PREDEFINED_CITIES.getIterable()) {
-                for (PredefinedBuilding building : city.getPredefinedBuildings()) {
-                    predefinedBuildingMap.put(new ChunkCoord(city.getDimension(),
-                            city.getChunkX() + building.relChunkX(), city.getChunkZ() + building.relChunkZ()), building);
-                }
-            }
+        Predefined p = getPredefined(provider.getWorld());
+        if (p.isEmpty()) {
+            return false;
         }
+        return p.occupiedBuildings().containsKey(coord) || p.streets().containsKey(coord);
     }
 
     public static PredefinedStreet getPredefinedStreet(CommonLevelAccessor level, ChunkCoord coord) {
-        AssetRegistries.loadPredefinedStuff(level);
-        if (predefinedStreetMap == null) {
-            predefinedStreetMap = new HashMap<>();
-            for (PredefinedCity city : AssetRegistries.PREDEFINED_CITIES.getIterable()) {
-                for (PredefinedStreet street : city.getPredefinedStreets()) {
-                    predefinedStreetMap.put(new ChunkCoord(city.getDimension(),
-                            city.getChunkX() + street.relChunkX(), city.getChunkZ() + street.relChunkZ()), street);
-                }
-            }
-        }
-        if (predefinedStreetMap.isEmpty()) {
+        Predefined p = getPredefined(level);
+        if (p.isEmpty()) {
             return null;
         }
-        return predefinedStreetMap.get(coord);
+        return p.streets().get(coord);
     }
 
 
@@ -161,21 +155,23 @@ public class City {
         }
         int chunkX = coord.chunkX();
         int chunkZ = coord.chunkZ();
-        Random cityCenterRandom = new Random(chunkZ * 797003437L + chunkX * 295075153L);
+        // Same value as the first nextDouble() of a Random with this seed but this is called a lot
+        // (getCityFactor scans large neighbourhoods) so we avoid the allocation
+        double cityCenterRandom = PositionalRandom.javaNextDouble(chunkZ * 797003437L + chunkX * 295075153L);
         if ((provider.getProfile().isSpace() || provider.getProfile().isSpheres())) {
             // @todo config
             CitySphere sphere = CitySphere.getCitySphere(coord, provider);
             if (!sphere.isEnabled()) {
                 // No sphere
-                return cityCenterRandom.nextDouble() < provider.getOutsideProfile().CITY_CHANCE;
+                return cityCenterRandom < provider.getOutsideProfile().CITY_CHANCE;
             }
             if (sphere.getCenter().chunkX() == chunkX && sphere.getCenter().chunkZ() == chunkZ) {
                 // This chunk is the center of a city
-                return cityCenterRandom.nextDouble() < provider.getProfile().CITY_CHANCE;
+                return cityCenterRandom < provider.getProfile().CITY_CHANCE;
             }
             return false;
         } else {
-            return cityCenterRandom.nextDouble() < provider.getProfile().CITY_CHANCE;
+            return cityCenterRandom < provider.getProfile().CITY_CHANCE;
         }
     }
 
@@ -189,7 +185,7 @@ public class City {
         }
         int chunkX = coord.chunkX();
         int chunkZ = coord.chunkZ();
-        Random cityRadiusRandom = new Random(chunkZ * 100001653L + chunkX * 295075153L);
+        long cityRadiusSeed = chunkZ * 100001653L + chunkX * 295075153L;
         LostCityProfile profile = provider.getProfile();
         int cityRange = profile.CITY_MAXRADIUS - profile.CITY_MINRADIUS;
         if (cityRange < 1) {
@@ -197,12 +193,12 @@ public class City {
         }
         if (profile.isSpace() || profile.isSpheres()) {
             if (CitySphere.intersectsWithCitySphere(coord, provider)) {
-                return profile.CITY_MINRADIUS + cityRadiusRandom.nextInt(cityRange);
+                return profile.CITY_MINRADIUS + PositionalRandom.javaNextInt(cityRadiusSeed, cityRange);
             } else {
-                return provider.getOutsideProfile().CITY_MINRADIUS + cityRadiusRandom.nextInt(provider.getOutsideProfile().CITY_MAXRADIUS - provider.getOutsideProfile().CITY_MINRADIUS);
+                return provider.getOutsideProfile().CITY_MINRADIUS + PositionalRandom.javaNextInt(cityRadiusSeed, provider.getOutsideProfile().CITY_MAXRADIUS - provider.getOutsideProfile().CITY_MINRADIUS);
             }
         } else {
-            return profile.CITY_MINRADIUS + cityRadiusRandom.nextInt(cityRange);
+            return profile.CITY_MINRADIUS + PositionalRandom.javaNextInt(cityRadiusSeed, cityRange);
         }
     }
 
@@ -223,13 +219,7 @@ public class City {
 
     // Calculate the citystyle based on all surrounding cities
     public static CityStyle getCityStyle(ChunkCoord coord, IDimensionInfo provider, LostCityProfile profile) {
-        CityStyle existing = CITY_STYLE_MAP.get(coord);
-        if (existing != null) {
-            return existing;
-        }
-        CityStyle newStyle = getCityStyleInt(coord, provider, profile);
-        CITY_STYLE_MAP.put(coord, newStyle);
-        return newStyle;
+        return CITY_STYLE_MAP.getOrCompute(coord, provider, (c, p) -> getCityStyleInt(c, p, profile));
     }
 
     private static CityStyle getCityStyleInt(ChunkCoord coord, IDimensionInfo provider, LostCityProfile profile) {
@@ -1,9 +1,23 @@
 package mcjty.lostcities.worldgen.lost;
 
+import mcjty.lostcities.varia.PerformanceOptimizer;
 import mcjty.lostcities.varia.PerlinNoiseGenerator14;
 
+/**
+ * The city factor is evaluated for tiles of TILE_SIZE x TILE_SIZE chunks at once. Neighbouring
+ * probes (which is the common case during worldgen) are then answered from the tile cache
+ */
 public class CityRarityMap {
 
+    public static final int TILE_SHIFT = 4;
+    public static final int TILE_SIZE = 1 << TILE_SHIFT;
+
+    private record TileKey(CityRarityMap map, int tileX, int tileZ) {
+    }
+
+    private static final PerformanceOptimizer.LRUCache<TileKey, float[]> TILES =
+        new PerformanceOptimizer.LRUCache<>("CityRarityTile", 1024);
+
     private final PerlinNoiseGenerator14 perlinCity;
     private final double scale;
     private final double offset;
@@ -16,11 +30,33 @@ public class CityRarityMap {
         this.innerScale = innerScale;
     }
 
+    public static void cleanCache() {
+        TILES.clear();
+    }
+
     public float getCityFactor(int cx, int cz) {
-        double factor = perlinCity.getValue(cx / scale, cz / scale) * innerScale - offset;
-        if (factor < 0) {
-            factor = 0;
+        TileKey key = new TileKey(this, cx >> TILE_SHIFT, cz >> TILE_SHIFT);
+        float[] tile = TILES.getOrCompute(key, this, CityRarityMap::calculateTile);
+        return tile[((cz & (TILE_SIZE - 1)) << TILE_SHIFT) + (cx & (TILE_SIZE - 1))];
+    }
+
+    private static float[] calculateTile(TileKey key, CityRarityMap map) {
+        float[] tile = new float[TILE_SIZE * TILE_SIZE];
+        map.getCityFactors(tile, key.tileX() << TILE_SHIFT, key.tileZ() << TILE_SHIFT, TILE_SIZE, TILE_SIZE);
+        return tile;
+    }
+
+    /**
+     * Fill 'factors' with the city factor of a block of w x h chunks (row by row)
+     */
+    public void getCityFactors(float[] factors, int minCx, int minCz, int w, int h) {
+        double[] values = perlinCity.getRegion(null, minCx, minCz, w, h, scale);
+        for (int i = 0; i < w * h; i++) {
+            double factor = values[i] * innerScale - offset;
+            if (factor < 0) {
+                factor = 0;
+            }
+            factors[i] = (float) factor;
         }
-        return (float) factor;
     }
 }
@@ -147,7 +147,7 @@ public class CitySphere implements ILostSphere {
         return sideBlock;
     }
 
-    public static void cleanCache() {
+    public static synchronized void cleanCache() {
         CITY_SPHERE_CACHE.clear();
     }
 
@@ -4,20 +4,34 @@ import mcjty.lostcities.config.LostCityProfile;
 import mcjty.lostcities.varia.ChunkCoord;
 import mcjty.lostcities.varia.PerlinNoiseGenerator14;
 import mcjty.lostcities.worldgen.IDimensionInfo;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.world.level.Level;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.function.Function;
 
 public class Highway {
 
-    private static PerlinNoiseGenerator14 perlinX = null;
-    private static PerlinNoiseGenerator14 perlinZ = null;
-    private static final Map<ChunkCoord, Integer> X_HIGHWAY_LEVEL_CACHE = new HashMap<>();
-    private static final Map<ChunkCoord, Integer> Z_HIGHWAY_LEVEL_CACHE = new HashMap<>();
+    private static volatile PerlinNoiseGenerator14 perlinX = null;
+    private static volatile PerlinNoiseGenerator14 perlinZ = null;
+
+    // A row (for X highways) or column (for Z highways) of chunks on which highways can occur
+    private record Row(ResourceKey<Level> dimension, Orientation orientation, int row) {
+    }
+
+    // A complete highway segment from start to end (inclusive). The level is -1 if the segment
+    // doesn't qualify as a highway (too short or no cities at the ends)
+    private record Span(int start, int end, int level) {
+    }
+
+    // For every row the discovered segments indexed by their start coordinate
+    private static final Map<Row, NavigableMap<Integer, Span>> SPANS = new ConcurrentHashMap<>();
 
 
-    private static void makePerlin(long seed) {
+    private static synchronized void makePerlin(long seed) {
         if (perlinX == null) {
             perlinX = new PerlinNoiseGenerator14(seed, 4);
         }
@@ -26,11 +40,10 @@ public class Highway {
         }
     }
 
-    public static void cleanCache() {
+    public static synchronized void cleanCache() {
         perlinX = null;
         perlinZ = null;
-        X_HIGHWAY_LEVEL_CACHE.clear();
-        Z_HIGHWAY_LEVEL_CACHE.clear();
+        SPANS.clear();
     }
 
     public static boolean hasHighway(ChunkCoord coord, IDimensionInfo provider, LostCityProfile profile) {
@@ -48,7 +61,7 @@ public class Highway {
      * Returns 0 or 1 if there is a highway (at that city level) going through this chunk.
      */
     public static int getXHighwayLevel(ChunkCoord coord, IDimensionInfo provider, LostCityProfile profile) {
-        return getHighwayLevel(provider, profile, Highway.X_HIGHWAY_LEVEL_CACHE, cp -> hasXHighway(cp, profile), Orientation.X, coord);
+        return getHighwayLevel(provider, profile, cp -> hasXHighway(cp, profile), Orientation.X, coord);
     }
 
     /**
@@ -56,32 +69,34 @@ public class Highway {
      * Returns 0 or 1 if there is a highway (at that city level) going through this chunk.
      */
     public static int getZHighwayLevel(ChunkCoord coord, IDimensionInfo provider, LostCityProfile profile) {
-        return getHighwayLevel(provider, profile, Highway.Z_HIGHWAY_LEVEL_CACHE, cp -> hasZHighway(cp, profile), Orientation.Z, coord);
+        return getHighwayLevel(provider, profile, cp -> hasZHighway(cp, profile), Orientation.Z, coord);
     }
 
-    private static int getHighwayLevel(IDimensionInfo provider, LostCityProfile profile, Map<ChunkCoord, Integer> cache, Function<ChunkCoord, Boolean> hasHighway, Orientation orientation, ChunkCoord cp) {
-        if (cache.containsKey(cp)) {
-            return cache.get(cp);
-        }
-
+    private static int getHighwayLevel(IDimensionInfo provider, LostCityProfile profile, Function<ChunkCoord, Boolean> hasHighway, Orientation orientation, ChunkCoord cp) {
         // Highways can only occur at chunkZ that is a multiple of 8
         int mask = profile.HIGHWAY_DISTANCE_MASK;
         if (mask <= 0) {
-            cache.put(cp, -1);
             return -1;
         }
 
         if ((cp.getCoord(orientation.getOpposite()) & mask) != 0) {
-            cache.put(cp, -1);
             return -1;
         }
 
         // Disable highways that intersect with cityspheres
         if ((provider.getProfile().isSpace() || provider.getProfile().isSpheres()) && CitySphere.intersectsWithCitySphere(cp, provider)) {
-            cache.put(cp, -1);
             return -1;
         }
 
+        // If this chunk is on a segment that we already know then we're done
+        NavigableMap<Integer, Span> spans = SPANS.computeIfAbsent(new Row(cp.dimension(), orientation, cp.getCoord(orientation.getOpposite())),
+                k -> new ConcurrentSkipListMap<>());
+        int pos = cp.getCoord(orientation);
+        Map.Entry<Integer, Span> known = spans.floorEntry(pos);
+        if (known != null && known.getValue().end() >= pos) {
+            return known.getValue().level();
+        }
+
         makePerlin(provider.getSeed());
         if (hasHighway.apply(cp)) {
             // This is part of a highway. Find the left-most chunk that is still part of this highway
@@ -118,16 +133,16 @@ public class Highway {
                                 BuildingInfo.getCityLevel(higher, provider)) / 2;
                         default -> throw new RuntimeException("Bad value for 'highwayLevelFromCities'!");
                     };
-                    for (ChunkCoord cc = lower; cc.getCoord(orientation) <= higher.getCoord(orientation); cc = cc.higher(orientation)) {
-                        cache.put(cc, level);
-                    }
                 }
             }
+            // Remember the whole segment (also if it is not a valid highway) so that the other
+            // chunks on it don't have to walk it again
+            int start = lower.getCoord(orientation);
+            spans.put(start, new Span(start, higher.getCoord(orientation), level));
             return level;
 
         }
 
-        cache.put(cp, -1);
         return -1;
     }
 
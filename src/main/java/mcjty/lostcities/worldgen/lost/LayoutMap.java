@@ -0,0 +1,154 @@
+package mcjty.lostcities.worldgen.lost;
+
+import mcjty.lostcities.api.RailChunkType;
+import mcjty.lostcities.config.LostCityProfile;
+import mcjty.lostcities.config.ProfileSetup;
+import mcjty.lostcities.gui.NullDimensionInfo;
+import mcjty.lostcities.varia.ChunkCoord;
+import mcjty.lostcities.worldgen.IDimensionInfo;
+import net.minecraft.SharedConstants;
+import net.minecraft.server.Bootstrap;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Render the city, street, highway, railway and sphere layout of a rectangle of chunks into an image.
+ * Only the layout functions are evaluated (the same ones that are used by the preview in the
+ * configuration gui) so no terrain or blocks are ever generated. The rectangle is split into tiles.
+ * The offline entry point renders them in parallel on all cores. In a running server the layout
+ * functions share their caches with worldgen so the export command renders on a single thread
+ */
+public class LayoutMap {
+
+    public static final int TILE_SIZE = 64;
+    public static final int MAX_SIZE = 4096;
+
+    public static final int COLOR_NONE = 0x1a3a1a;
+    public static final int COLOR_SPHERE = 0x223366;
+    public static final int COLOR_STREET = 0x995555;
+    public static final int COLOR_BUILDING = 0xffffff;
+    public static final int COLOR_HIGHWAY = 0xcccccc;
+    public static final int COLOR_RAILWAY = 0x992222;
+    public static final int COLOR_STATION = 0xff4444;
+    public static final int COLOR_CROSSING = 0x777777;
+
+    /**
+     * Render the rectangle (inclusive chunk coordinates). Every chunk becomes a square of 'scale' pixels.
+     * With a parallelism above 1 the tiles are rendered by a dedicated pool of that many threads
+     */
+    public static BufferedImage render(IDimensionInfo provider, int minX, int minZ, int maxX, int maxZ, int scale, int parallelism) {
+        int w = maxX - minX + 1;
+        int h = maxZ - minZ + 1;
+        if (w <= 0 || h <= 0 || w > MAX_SIZE || h > MAX_SIZE) {
+            throw new IllegalArgumentException("Invalid map size " + w + "x" + h + " (maximum " + MAX_SIZE + ")");
+        }
+        BufferedImage image = new BufferedImage(w * scale, h * scale, BufferedImage.TYPE_INT_RGB);
+        int tilesX = (w + TILE_SIZE - 1) / TILE_SIZE;
+        int tilesZ = (h + TILE_SIZE - 1) / TILE_SIZE;
+        if (parallelism <= 1) {
+            for (int tile = 0; tile < tilesX * tilesZ; tile++) {
+                renderTile(provider, image, tile, tilesX, minX, minZ, w, h, scale);
+            }
+            return image;
+        }
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            // setRGB on distinct regions of an int raster is safe to do concurrently
+            pool.submit(() -> IntStream.range(0, tilesX * tilesZ).parallel()
+                    .forEach(tile -> renderTile(provider, image, tile, tilesX, minX, minZ, w, h, scale))).join();
+        } finally {
+            pool.shutdown();
+        }
+        return image;
+    }
+
+    private static void renderTile(IDimensionInfo provider, BufferedImage image, int tile, int tilesX, int minX, int minZ, int w, int h, int scale) {
+        int tx = (tile % tilesX) * TILE_SIZE;
+        int tz = (tile / tilesX) * TILE_SIZE;
+        int tw = Math.min(TILE_SIZE, w - tx);
+        int th = Math.min(TILE_SIZE, h - tz);
+        int[] pixels = new int[tw * scale * th * scale];
+        for (int z = 0; z < th; z++) {
+            for (int x = 0; x < tw; x++) {
+                int color = getColor(provider, minX + tx + x, minZ + tz + z);
+                for (int dz = 0; dz < scale; dz++) {
+                    int offset = (z * scale + dz) * tw * scale + x * scale;
+                    for (int dx = 0; dx < scale; dx++) {
+                        pixels[offset + dx] = color;
+                    }
+                }
+            }
+        }
+        image.setRGB(tx * scale, tz * scale, tw * scale, th * scale, pixels, 0, tw * scale);
+    }
+
+    public static void write(BufferedImage image, File file) throws IOException {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+        ImageIO.write(image, "png", file);
+    }
+
+    private static int getColor(IDimensionInfo provider, int chunkX, int chunkZ) {
+        ChunkCoord coord = new ChunkCoord(provider.getType(), chunkX, chunkZ);
+        LostCityProfile profile = BuildingInfo.getProfile(coord, provider);
+        int color = COLOR_NONE;
+
+        boolean spheres = provider.getProfile().isSpace() || provider.getProfile().isSpheres();
+        if (spheres && CitySphere.intersectsWithCitySphere(coord, provider)) {
+            color = COLOR_SPHERE;
+        }
+
+        if (BuildingInfo.isCityRaw(coord, provider, profile)) {
+            // Same approximation as the gui preview: we don't look at multi buildings or lonely buildings here
+            boolean building = BuildingInfo.getBuildingRandom(chunkX, chunkZ, provider.getSeed()).nextFloat() < profile.BUILDING_CHANCE;
+            color = building ? COLOR_BUILDING : COLOR_STREET;
+        }
+
+        boolean highway = Highway.getXHighwayLevel(coord, provider, profile) >= 0 || Highway.getZHighwayLevel(coord, provider, profile) >= 0;
+        Railway.RailChunkInfo rail = Railway.getRailChunkType(coord, provider, profile);
+        boolean railway = rail.getType() != RailChunkType.NONE;
+        if (highway && railway) {
+            color = COLOR_CROSSING;
+        } else if (highway) {
+            color = COLOR_HIGHWAY;
+        } else if (railway) {
+            color = rail.getType().isStation() ? COLOR_STATION : COLOR_RAILWAY;
+        }
+        return color;
+    }
+
+    /**
+     * Offline entry point: LayoutMap <profile> <seed> <minX> <minZ> <maxX> <maxZ> <file> [scale]
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 7) {
+            //noinspection UseOfSystemOutOrSystemErr
+            System.out.println("Usage: LayoutMap <profile> <seed> <minX> <minZ> <maxX> <maxZ> <file> [scale]");
+            return;
+        }
+        SharedConstants.tryDetectVersion();
+        Bootstrap.bootStrap();
+        ProfileSetup.initStandardProfiles();
+        LostCityProfile profile = ProfileSetup.STANDARD_PROFILES.get(args[0]);
+        if (profile == null) {
+            throw new IllegalArgumentException("Unknown profile '" + args[0] + "'!");
+        }
+        long seed = Long.parseLong(args[1]);
+        int scale = args.length > 7 ? Integer.parseInt(args[7]) : 1;
+
+        long start = System.currentTimeMillis();
+        BufferedImage image = render(new NullDimensionInfo(profile, seed),
+                Integer.parseInt(args[2]), Integer.parseInt(args[3]), Integer.parseInt(args[4]), Integer.parseInt(args[5]), scale,
+                Runtime.getRuntime().availableProcessors());
+        write(image, new File(args[6]));
+        //noinspection UseOfSystemOutOrSystemErr
+        System.out.println("Written " + args[6] + " in " + (System.currentTimeMillis() - start) + "ms");
+    }
+}
@@ -0,0 +1,308 @@
+package mcjty.lostcities.worldgen.lost;
+
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import mcjty.lostcities.LostCities;
+import mcjty.lostcities.api.LostChunkCharacteristics;
+import mcjty.lostcities.varia.ChunkCoord;
+import mcjty.lostcities.varia.PerformanceOptimizer;
+import mcjty.lostcities.worldgen.IDimensionInfo;
+import mcjty.lostcities.worldgen.lost.cityassets.BuildingPart;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.level.Level;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * A per-dimension index of building and part types that have been discovered so far. Buildings are
+ * fed by the asynchronous locate search (which only looks at chunk characteristics) and parts are fed
+ * whenever a city chunk is actually generated. Repeated locates for the same type are answered from
+ * this index without having to scan the world again. Only a limited number of regions around the
+ * places that were explored most recently are kept
+ */
+public class LocateIndex {
+
+    public static final int MAX_RESULTS = 7;
+
+    private static final Map<ResourceKey<Level>, LocateIndex> INDICES = new ConcurrentHashMap<>();
+    private static final Map<UUID, Search> SEARCHES = new ConcurrentHashMap<>();
+
+    // Chunk characteristics are calculated under a global lock so more than one worker doesn't help
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "LostCities-Locate");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // The index is split in regions of 32x32 chunks. Only the most recently used regions are kept
+    // so the index stays bounded no matter how much of the world is explored. An evicted region
+    // simply has to be scanned again (buildings) or falls back to the edit mode data (parts)
+    private static final int REGION_SHIFT = 5;
+    private static final int MAX_REGIONS = 64;
+    private static final PerformanceOptimizer.LRUCache<ChunkCoord, Region> REGIONS =
+        new PerformanceOptimizer.LRUCache<>("LocateIndex", MAX_REGIONS);
+
+    private final ResourceKey<Level> dimension;
+
+    private LocateIndex(ResourceKey<Level> dimension) {
+        this.dimension = dimension;
+    }
+
+    public static LocateIndex get(ResourceKey<Level> dimension) {
+        return INDICES.computeIfAbsent(dimension, LocateIndex::new);
+    }
+
+    public static void cleanCache() {
+        SEARCHES.values().forEach(Search::cancel);
+        SEARCHES.clear();
+        INDICES.clear();
+        REGIONS.clear();
+    }
+
+    /**
+     * Record the building and the parts of a chunk that is being generated
+     */
+    public static void record(BuildingInfo info) {
+        if (!info.hasBuilding) {
+            return;
+        }
+        Region region = get(info.coord.dimension()).getRegion(info.coord.chunkX(), info.coord.chunkZ(), true);
+        region.addBuilding(info.getBuilding().getId(), info.coord);
+        int x = (info.coord.chunkX() << 4) + 8;
+        int z = (info.coord.chunkZ() << 4) + 8;
+        for (int f = -info.cellars; info.isValidFloor(f); f++) {
+            BuildingPart part = info.getFloor(f);
+            if (part != null) {
+                region.addPart(part.getId(), BlockPos.asLong(x, info.getCityGroundLevel() + f * 6, z));
+            }
+        }
+    }
+
+    private Region getRegion(int chunkX, int chunkZ, boolean create) {
+        ChunkCoord key = new ChunkCoord(dimension, chunkX >> REGION_SHIFT, chunkZ >> REGION_SHIFT);
+        Region region = REGIONS.get(key);
+        if (region == null && create) {
+            // Creating a region is rare so this can lock. Two threads must not both create the same region
+            synchronized (REGIONS) {
+                region = REGIONS.get(key);
+                if (region == null) {
+                    region = new Region();
+                    REGIONS.put(key, region);
+                }
+            }
+        }
+        return region;
+    }
+
+    /**
+     * Call 'consumer' for every region that is currently indexed and that overlaps the given radius
+     */
+    private void forEachRegion(ChunkCoord center, int radius, Consumer<Region> consumer) {
+        int minRx = (center.chunkX() - radius) >> REGION_SHIFT;
+        int maxRx = (center.chunkX() + radius) >> REGION_SHIFT;
+        int minRz = (center.chunkZ() - radius) >> REGION_SHIFT;
+        int maxRz = (center.chunkZ() + radius) >> REGION_SHIFT;
+        for (int rx = minRx; rx <= maxRx; rx++) {
+            for (int rz = minRz; rz <= maxRz; rz++) {
+                Region region = getRegion(rx << REGION_SHIFT, rz << REGION_SHIFT, false);
+                if (region != null) {
+                    consumer.accept(region);
+                }
+            }
+        }
+    }
+
+    /**
+     * Return true if every chunk in the given radius around the center has already been scanned
+     */
+    public boolean isScanned(ChunkCoord center, int radius) {
+        for (int dx = -radius; dx <= radius; dx++) {
+            for (int dz = -radius; dz <= radius; dz++) {
+                int cx = center.chunkX() + dx;
+                int cz = center.chunkZ() + dz;
+                Region region = getRegion(cx, cz, false);
+                if (region == null || !region.isScanned(cx, cz)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Return the known candidate chunks for a building type within the given radius, closest first
+     */
+    public List<ChunkCoord> findBuildings(ResourceLocation id, ChunkCoord center, int radius) {
+        List<ChunkCoord> result = new ArrayList<>();
+        forEachRegion(center, radius, region -> region.collectBuildings(id, coord -> {
+            if (Math.abs(coord.chunkX() - center.chunkX()) <= radius && Math.abs(coord.chunkZ() - center.chunkZ()) <= radius) {
+                result.add(coord);
+            }
+        }));
+        result.sort(Comparator.comparingLong(c -> distanceSq(c, center)));
+        return result;
+    }
+
+    /**
+     * Return the known positions of a part within the given chunk radius, closest first
+     */
+    public List<BlockPos> findParts(ResourceLocation id, ChunkCoord center, int radius) {
+        List<BlockPos> result = new ArrayList<>();
+        forEachRegion(center, radius, region -> region.collectParts(id, pos -> {
+            if (Math.abs((pos.getX() >> 4) - center.chunkX()) <= radius && Math.abs((pos.getZ() >> 4) - center.chunkZ()) <= radius) {
+                result.add(pos);
+            }
+        }));
+        result.sort(Comparator.comparingLong(p -> distanceSq(new ChunkCoord(center.dimension(), p.getX() >> 4, p.getZ() >> 4), center)));
+        return result;
+    }
+
+    private static long distanceSq(ChunkCoord a, ChunkCoord b) {
+        long dx = a.chunkX() - b.chunkX();
+        long dz = a.chunkZ() - b.chunkZ();
+        return dx * dx + dz * dz;
+    }
+
+    /**
+     * Start an asynchronous search for a building type. Any previous search for the same owner is
+     * cancelled. The callbacks are called on the worker thread so the caller is responsible for
+     * moving them back to the server thread
+     */
+    public static Search startSearch(UUID owner, ResourceLocation id, ChunkCoord center, int radius, IDimensionInfo provider,
+                                     Consumer<Integer> onProgress, Consumer<Search> onDone) {
+        cancelSearch(owner);
+        Search search = new Search(id, center, radius);
+        SEARCHES.put(owner, search);
+        LocateIndex index = get(center.dimension());
+        EXECUTOR.execute(() -> {
+            try {
+                index.scan(search, provider, onProgress);
+            } catch (Exception e) {
+                LostCities.LOGGER.error("Error while locating {}: {}", id, e.getMessage(), e);
+            } finally {
+                SEARCHES.remove(owner, search);
+                onDone.accept(search);
+            }
+        });
+        return search;
+    }
+
+    public static boolean cancelSearch(UUID owner) {
+        Search search = SEARCHES.remove(owner);
+        if (search != null) {
+            search.cancel();
+            return true;
+        }
+        return false;
+    }
+
+    private void scan(Search search, IDimensionInfo provider, Consumer<Integer> onProgress) {
+        ChunkCoord center = search.center;
+        int total = (search.radius * 2 + 1) * (search.radius * 2 + 1);
+        int lastReported = 0;
+        // Abuse BlockPos as ChunkPos
+        for (BlockPos.MutableBlockPos mpos : BlockPos.spiralAround(new BlockPos(center.chunkX(), 0, center.chunkZ()), search.radius, Direction.EAST, Direction.SOUTH)) {
+            if (search.isCancelled()) {
+                return;
+            }
+            ChunkCoord coord = new ChunkCoord(center.dimension(), mpos.getX(), mpos.getZ());
+            Region region = getRegion(coord.chunkX(), coord.chunkZ(), true);
+            if (!region.isScanned(coord.chunkX(), coord.chunkZ())) {
+                LostChunkCharacteristics characteristics = BuildingInfo.getChunkCharacteristics(coord, provider);
+                if (characteristics.couldHaveBuilding && characteristics.buildingType != null) {
+                    region.addBuilding(characteristics.buildingType.getId(), coord);
+                }
+                region.setScanned(coord.chunkX(), coord.chunkZ());
+            }
+            int done = search.progress.incrementAndGet();
+            int percentage = done * 100 / total;
+            if (percentage >= lastReported + 25 && percentage < 100) {
+                lastReported = percentage;
+                onProgress.accept(percentage);
+            }
+        }
+    }
+
+    /**
+     * Everything that is known about a region of 32x32 chunks. Part positions are stored as packed longs
+     */
+    private static class Region {
+        private final BitSet scanned = new BitSet(1 << (REGION_SHIFT * 2));
+        private final Map<ResourceLocation, Set<ChunkCoord>> buildings = new HashMap<>();
+        private final Map<ResourceLocation, LongSet> parts = new HashMap<>();
+
+        private static int index(int chunkX, int chunkZ) {
+            int mask = (1 << REGION_SHIFT) - 1;
+            return ((chunkX & mask) << REGION_SHIFT) | (chunkZ & mask);
+        }
+
+        synchronized boolean isScanned(int chunkX, int chunkZ) {
+            return scanned.get(index(chunkX, chunkZ));
+        }
+
+        synchronized void setScanned(int chunkX, int chunkZ) {
+            scanned.set(index(chunkX, chunkZ));
+        }
+
+        synchronized void addBuilding(ResourceLocation id, ChunkCoord coord) {
+            buildings.computeIfAbsent(id, k -> new HashSet<>()).add(coord);
+        }
+
+        synchronized void addPart(ResourceLocation id, long pos) {
+            parts.computeIfAbsent(id, k -> new LongOpenHashSet()).add(pos);
+        }
+
+        synchronized void collectBuildings(ResourceLocation id, Consumer<ChunkCoord> consumer) {
+            buildings.getOrDefault(id, Collections.emptySet()).forEach(consumer);
+        }
+
+        synchronized void collectParts(ResourceLocation id, Consumer<BlockPos> consumer) {
+            LongSet positions = parts.get(id);
+            if (positions != null) {
+                positions.forEach((long pos) -> consumer.accept(BlockPos.of(pos)));
+            }
+        }
+    }
+
+    public static class Search {
+        private final ResourceLocation id;
+        private final ChunkCoord center;
+        private final int radius;
+        private final AtomicInteger progress = new AtomicInteger();
+        private volatile boolean cancelled = false;
+
+        private Search(ResourceLocation id, ChunkCoord center, int radius) {
+            this.id = id;
+            this.center = center;
+            this.radius = radius;
+        }
+
+        public ResourceLocation getId() {
+            return id;
+        }
+
+        public ChunkCoord getCenter() {
+            return center;
+        }
+
+        public int getRadius() {
+            return radius;
+        }
+
+        public void cancel() {
+            cancelled = true;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+}
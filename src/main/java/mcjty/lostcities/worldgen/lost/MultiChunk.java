@@ -55,13 +55,7 @@ public class MultiChunk {
     public static synchronized MultiChunk getOrCreate(IDimensionInfo provider, ChunkCoord coord) {
         int areasize = provider.getWorldStyle().getMultiSettings().areasize();
         ChunkCoord mc = getMultiCoord(coord, areasize);
-        MultiChunk existing = MULTICHUNKS.get(mc);
-        if (existing != null) {
-            return existing;
-        }
-        MultiChunk newChunk = new MultiChunk(mc, areasize).calculateBuildings(provider);
-        MULTICHUNKS.put(mc, newChunk);
-        return newChunk;
+        return MULTICHUNKS.getOrCompute(mc, provider, (c, p) -> new MultiChunk(c, areasize).calculateBuildings(p));
     }
 
     public MB getMultiBuilding(ChunkCoord coord) {
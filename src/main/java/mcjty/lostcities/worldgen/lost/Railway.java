@@ -12,6 +12,8 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static mcjty.lostcities.api.RailChunkType.*;
 import static mcjty.lostcities.worldgen.lost.Railway.RailDirection.*;
@@ -91,9 +93,20 @@ public class Railway {
 
     private static final PerformanceOptimizer.LRUCache<ChunkCoord, RailChunkInfo> RAIL_INFO = 
         new PerformanceOptimizer.LRUCache<>("RailInfo");
+    // Rails that were removed because they collide with a building. This is kept separately so
+    // that the removal survives eviction from RAIL_INFO
+    private static final Set<ChunkCoord> REMOVED_RAILS = ConcurrentHashMap.newKeySet();
 
     public static void cleanCache() {
         RAIL_INFO.clear();
+        REMOVED_RAILS.clear();
+    }
+
+    // Only stations need a second random value so only those pay for the QualityRandom
+    private static boolean isOpenStation(long railSeed) {
+        QualityRandom random = new QualityRandom(railSeed);
+        random.nextFloat();
+        return random.nextFloat() < .5f;
     }
 
     /**
@@ -102,13 +115,13 @@ public class Railway {
     private static RailChunkInfo getRailChunkTypeInternal(ChunkCoord key, IDimensionInfo provider) {
         int chunkX = key.chunkX();
         int chunkZ = key.chunkZ();
-        QualityRandom randomRailChunkType = new QualityRandom(provider.getSeed() + chunkZ * 2600003897L + chunkX * 43600002517L);
+        long railSeed = provider.getSeed() + chunkZ * 2600003897L + chunkX * 43600002517L;
 
         LostCityProfile profile = BuildingInfo.getProfile(key, provider);
         RailwayParts railwayParts = provider.getWorldStyle().getPartSelector().railwayParts();
 
         // @todo make all settings based on rand below configurable
-        float r = randomRailChunkType.nextFloat();
+        float r = QualityRandom.firstFloat(railSeed);
 
         int mx = Math.floorMod(chunkX + 1, 20);       // The +1 to avoid having them on highways
         int mz = Math.floorMod(chunkZ + 1, 20);
@@ -137,7 +150,7 @@ public class Railway {
                 return new RailChunkInfo(HORIZONTAL, BI, RAILWAY_LEVEL_OFFSET, 3);
             }
             return getStationType(key, provider, profile, r, 3,
-                    randomRailChunkType.nextFloat() < .5f ? railwayParts.stationOpen() : railwayParts.stationOpenRoof());
+                    isOpenStation(railSeed) ? railwayParts.stationOpen() : railwayParts.stationOpenRoof());
         }
         if (mx == 10 && mz == 0) {
             if (!BuildingInfo.isCityRaw(key, provider, profile)) {
@@ -162,7 +175,7 @@ public class Railway {
                 return new RailChunkInfo(HORIZONTAL, BI, RAILWAY_LEVEL_OFFSET, 2);
             }
             return getStationType(key, provider, profile, r, 2,
-                    randomRailChunkType.nextFloat() < .5f ? railwayParts.stationOpen() : railwayParts.stationOpenRoof());
+                    isOpenStation(railSeed) ? railwayParts.stationOpen() : railwayParts.stationOpenRoof());
         }
         if (mx == 10 && mz == 10) {
             if (!BuildingInfo.isCityRaw(key, provider, profile)) {
@@ -185,7 +198,7 @@ public class Railway {
                 return new RailChunkInfo(HORIZONTAL, BI, RAILWAY_LEVEL_OFFSET, 1);
             }
             return getStationType(key, provider, profile, r, 1,
-                    randomRailChunkType.nextFloat() < .5f ? railwayParts.stationOpen() : railwayParts.stationOpenRoof());
+                    isOpenStation(railSeed) ? railwayParts.stationOpen() : railwayParts.stationOpenRoof());
         }
         if (mx == 0 && mz == 0) {
             return RailChunkInfo.NOTHING;
@@ -322,11 +335,14 @@ public class Railway {
     }
 
     public static RailChunkInfo getRailChunkType(ChunkCoord coord, IDimensionInfo provider, LostCityProfile profile) {
-        if (RAIL_INFO.containsKey(coord)) {
-            return RAIL_INFO.get(coord);
-        }
+        return RAIL_INFO.getOrCompute(coord, provider, (c, p) -> calculateRailChunkType(c, p, profile));
+    }
+
+    private static RailChunkInfo calculateRailChunkType(ChunkCoord coord, IDimensionInfo provider, LostCityProfile profile) {
         RailChunkInfo info = getRailChunkTypeInternal(coord, provider);
-        if ((provider.getProfile().isSpace() || provider.getProfile().isSpheres()) && CitySphere.onCitySphereBorder(coord, provider)) {
+        if (REMOVED_RAILS.contains(coord)) {
+            info = RailChunkInfo.NOTHING;
+        } else if ((provider.getProfile().isSpace() || provider.getProfile().isSpheres()) && CitySphere.onCitySphereBorder(coord, provider)) {
             info = RailChunkInfo.NOTHING;
         } else if (info.getType().isStation()) {
             if (!profile.RAILWAY_STATIONS_ENABLED) {
@@ -337,11 +353,11 @@ public class Railway {
                 info = RailChunkInfo.NOTHING;
             }
         }
-        RAIL_INFO.put(coord, info);
         return info;
     }
 
     public static void removeRailChunkType(ChunkCoord coord) {
+        REMOVED_RAILS.add(coord);
         RAIL_INFO.put(coord, RailChunkInfo.NOTHING);
     }
 
@@ -0,0 +1,106 @@
+package mcjty.lostcities.worldgen.lost;
+
+import mcjty.lostcities.setup.Config;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.tags.StructureTags;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.WorldGenLevel;
+import net.minecraft.world.level.chunk.ChunkAccess;
+import net.minecraft.world.level.chunk.ChunkStatus;
+import net.minecraft.world.level.levelgen.structure.Structure;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per region (32x32 chunks) index of the structures that cities have to avoid. For every chunk the
+ * index remembers if it references a village and/or one of the configured avoided structures.
+ * A chunk is added the first time it is needed after it reached the STRUCTURE_REFERENCES status
+ * (at that point its references no longer change). After that checking a chunk and its neighbours
+ * is a few array lookups instead of going over the references of every neighbouring chunk again
+ */
+public class StructureIndex {
+
+    public static final int VILLAGE = 1;
+    public static final int AVOIDED = 2;
+
+    // Flag value for a chunk that was indexed (so that chunks without structures are also known)
+    private static final byte KNOWN = (byte) 0x80;
+
+    private record Region(ResourceKey<Level> dimension, int regionX, int regionZ) {
+    }
+
+    private static final Map<Region, byte[]> REGIONS = new ConcurrentHashMap<>();
+
+    public static void cleanCache() {
+        REGIONS.clear();
+    }
+
+    /**
+     * Get the structure flags (VILLAGE and AVOIDED) for a chunk or -1 if the structure references of
+     * that chunk are not known yet
+     */
+    public static int getFlags(WorldGenLevel level, int chunkX, int chunkZ) {
+        byte[] flags = REGIONS.computeIfAbsent(new Region(level.getLevel().dimension(), chunkX >> 5, chunkZ >> 5), r -> new byte[32 * 32]);
+        int idx = ((chunkX & 31) << 5) | (chunkZ & 31);
+        byte f = flags[idx];
+        if (f == 0) {
+            if (!level.hasChunk(chunkX, chunkZ)) {
+                return -1;
+            }
+            ChunkAccess ch = level.getChunk(chunkX, chunkZ, ChunkStatus.STRUCTURE_REFERENCES);
+            f = (byte) (KNOWN | calculateFlags(level, ch));
+            flags[idx] = f;
+        }
+        return f & ~KNOWN;
+    }
+
+    /**
+     * Find the closest chunk (Chebyshev distance) within the radius that has one of the given flags.
+     * Returns the distance or -1 if there is none. Chunks whose structures are not known yet are treated
+     * as free and the search continues with the other chunks
+     */
+    public static int findClosest(WorldGenLevel level, int chunkX, int chunkZ, int radius, int centerMask, int adjacentMask) {
+        for (int d = 0; d <= radius; d++) {
+            int mask = d == 0 ? centerMask : adjacentMask;
+            for (int dx = -d; dx <= d; dx++) {
+                for (int dz = -d; dz <= d; dz++) {
+                    if (Math.max(Math.abs(dx), Math.abs(dz)) != d) {
+                        continue;
+                    }
+                    int f = getFlags(level, chunkX + dx, chunkZ + dz);
+                    if (f == -1) {
+                        continue;  // If we have unknown chunks we assume it is ok
+                    }
+                    if ((f & mask) != 0) {
+                        return d;
+                    }
+                }
+            }
+        }
+        return -1;
+    }
+
+    private static int calculateFlags(WorldGenLevel level, ChunkAccess ch) {
+        int flags = 0;
+        if (ch.hasAnyStructureReferences()) {
+            var structures = level.registryAccess().registryOrThrow(Registries.STRUCTURE);
+            for (var entry : ch.getAllReferences().entrySet()) {
+                if (!entry.getValue().isEmpty()) {
+                    Optional<ResourceKey<Structure>> key = structures.getResourceKey(entry.getKey());
+                    if (key.isPresent()) {
+                        if (structures.getHolderOrThrow(key.get()).is(StructureTags.VILLAGE)) {
+                            flags |= VILLAGE;
+                        }
+                        if (Config.isAvoidedStructure(key.get().location())) {
+                            flags |= AVOIDED;
+                        }
+                    }
+                }
+            }
+        }
+        return flags;
+    }
+}
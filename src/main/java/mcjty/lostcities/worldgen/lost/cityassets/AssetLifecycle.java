@@ -0,0 +1,43 @@
+package mcjty.lostcities.worldgen.lost.cityassets;
+
+import mcjty.lostcities.LostCities;
+import mcjty.lostcities.setup.ForgeEventHandlers;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.CommonLevelAccessor;
+
+/**
+ * Controls when the assets are loaded. They are loaded once when the overworld is loaded and they are
+ * rebuilt after a datapack reload. A rebuild happens next to the active assets and is swapped in when
+ * it is complete so chunks that are generating at that moment are not affected. After that only the
+ * caches that refer to assets are cleared. Worldgen can use isReady() to check if the assets are available
+ */
+public class AssetLifecycle {
+
+    public static boolean isReady() {
+        return AssetRegistries.isLoaded();
+    }
+
+    /**
+     * Make sure the assets are loaded. This is cheap if they are already loaded
+     */
+    public static void ensureLoaded(CommonLevelAccessor level) {
+        if (!isReady()) {
+            AssetRegistries.load(level);
+        }
+    }
+
+    public static void onServerStarting(ServerLevel overworld) {
+        ensureLoaded(overworld);
+    }
+
+    public static void onDatapackReload(ServerLevel overworld) {
+        LostCities.getLogger().info("Datapacks reloaded: rebuilding Lost Cities assets");
+        try {
+            AssetRegistries.reload(overworld);
+        } catch (RuntimeException e) {
+            LostCities.getLogger().error("Error rebuilding Lost Cities assets, keeping the old ones!", e);
+            return;
+        }
+        ForgeEventHandlers.cleanAssetCaches();
+    }
+}
@@ -1,5 +1,6 @@
 package mcjty.lostcities.worldgen.lost.cityassets;
 
+import mcjty.lostcities.LostCities;
 import mcjty.lostcities.setup.CustomRegistries;
 import mcjty.lostcities.worldgen.lost.regassets.*;
 import mcjty.lostcities.worldgen.lost.regassets.StuffSettingsRE;
@@ -27,12 +28,17 @@ public class AssetRegistries {
     public static final RegistryAssetRegistry<PredefinedSphere, PredefinedSphereRE> PREDEFINED_SPHERES = new RegistryAssetRegistry<>(CustomRegistries.PREDEFINEDSPHERES_REGISTRY_KEY, PredefinedSphere::new);
     public static final RegistryAssetRegistry<StuffObject, StuffSettingsRE> STUFF = new RegistryAssetRegistry<>(CustomRegistries.STUFF_REGISTRY_KEY, StuffObject::new);
 
-    public static final Map<String, List<StuffObject>> STUFF_BY_TAG = new HashMap<>();
+    private static final List<RegistryAssetRegistry<?, ?>> ALL = List.of(VARIANTS, CONDITIONS, PALETTES, STYLES, WORLDSTYLES, CITYSTYLES,
+            PARTS, BUILDINGS, MULTI_BUILDINGS, SCATTERED, STUFF, PREDEFINED_CITIES, PREDEFINED_SPHERES);
 
-    private static boolean loaded = false;
-    private static boolean loadedPredefined = false;
+    private static volatile Map<String, List<StuffObject>> stuffByTag = new HashMap<>();
 
-    public static void reset() {
+    private static volatile boolean loaded = false;
+    // Incremented every time a new set of assets becomes active
+    private static volatile int generation = 0;
+    private static volatile boolean loadedPredefined = false;
+
+    public static synchronized void reset() {
         VARIANTS.reset();
         CONDITIONS.reset();
         WORLDSTYLES.reset();
@@ -45,31 +51,78 @@ public class AssetRegistries {
         PREDEFINED_CITIES.reset();
         PREDEFINED_SPHERES.reset();
         STUFF.reset();
-        STUFF_BY_TAG.clear();
+        stuffByTag = new HashMap<>();
         loaded = false;
         loadedPredefined = false;
     }
 
-    public static void load(CommonLevelAccessor level) {
+    public static boolean isLoaded() {
+        return loaded;
+    }
+
+    public static int getGeneration() {
+        return generation;
+    }
+
+    public static List<StuffObject> getStuffByTag(String tag) {
+        return stuffByTag.get(tag);
+    }
+
+    public static synchronized void load(CommonLevelAccessor level) {
         if (loaded) {
             return;
         }
-        PARTS.loadAll(level);
-        BUILDINGS.loadAll(level);
-        STUFF.loadAll(level);
-        STUFF.getIterable().forEach(stuff -> stuff.getSettings().getTags().forEach(tag -> {
-            List<StuffObject> list = STUFF_BY_TAG.computeIfAbsent(tag, k -> new ArrayList<>());
-            list.add(stuff);
-        }));
+        build(level);
+        loaded = true;
+    }
+
+    /**
+     * Build a complete new set of assets and then swap it in. Until the swap worldgen keeps
+     * using the old assets. If building fails the old assets stay active
+     */
+    public static synchronized void reload(CommonLevelAccessor level) {
+        build(level);
         loaded = true;
     }
 
+    private static void build(CommonLevelAccessor level) {
+        // Resolve the complete asset graph in one go so that nothing has to be created lazily during worldgen
+        long start = System.currentTimeMillis();
+        ALL.forEach(RegistryAssetRegistry::stage);
+        Map<String, List<StuffObject>> newStuffByTag = new HashMap<>();
+        try {
+            for (RegistryAssetRegistry<?, ?> registry : ALL) {
+                registry.loadAll(level);
+            }
+            STUFF.getIterable().forEach(stuff -> stuff.getSettings().getTags().forEach(tag -> {
+                List<StuffObject> list = newStuffByTag.computeIfAbsent(tag, k -> new ArrayList<>());
+                list.add(stuff);
+            }));
+        } catch (RuntimeException e) {
+            ALL.forEach(RegistryAssetRegistry::abort);
+            throw e;
+        }
+        ALL.forEach(RegistryAssetRegistry::commit);
+        stuffByTag = newStuffByTag;
+        loadedPredefined = true;
+        generation++;
+        LostCities.LOGGER.info("Loaded Lost Cities assets in " + (System.currentTimeMillis() - start) + "ms");
+    }
+
+    /**
+     * The predefined cities and spheres are normally built together with the other assets. This
+     * is only needed if they are used before the assets are loaded
+     */
     public static void loadPredefinedStuff(CommonLevelAccessor level) {
         if (loadedPredefined) {
             return;
         }
-        PREDEFINED_CITIES.loadAll(level);
-        PREDEFINED_SPHERES.loadAll(level);
-        loadedPredefined = true;
+        synchronized (AssetRegistries.class) {
+            if (!loadedPredefined) {
+                PREDEFINED_CITIES.loadAll(level);
+                PREDEFINED_SPHERES.loadAll(level);
+                loadedPredefined = true;
+            }
+        }
     }
 }
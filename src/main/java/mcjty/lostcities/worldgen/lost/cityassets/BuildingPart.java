@@ -9,7 +9,9 @@ import net.minecraft.resources.ResourceLocation;
 import net.minecraft.world.level.CommonLevelAccessor;
 import net.minecraft.world.level.block.state.BlockState;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -27,7 +29,9 @@ public class BuildingPart implements IBuildingPart, ILostCityAsset {
     private final int zSize;
 
     // Optimized version of this part which is organized in xSize*ySize vertical strings
-    private char[][] vslices = null;
+    private final char[][] vslices;
+    // The same vertical strings as runs of identical characters
+    private final List<ColumnRun>[] columnRuns;
 
     private Palette localPalette = null;
     private String refPaletteName;
@@ -39,6 +43,8 @@ public class BuildingPart implements IBuildingPart, ILostCityAsset {
         xSize = object.getxSize();
         zSize = object.getzSize();
         slices = object.getSlices();
+        vslices = calculateVslices();
+        columnRuns = calculateColumnRuns(vslices);
         if (object.getLocalPalette() != null) {
             localPalette = new Palette("__local__" + name.getPath());
             localPalette.parsePaletteArray(object.getLocalPalette()); // @todo get the full palette instead
@@ -101,38 +107,67 @@ public class BuildingPart implements IBuildingPart, ILostCityAsset {
     }
 
 
-    /**
-     * Vertical slices, organized by z*xSize+x
-     */
-    @Override
-    public char[][] getVslices() {
-        if (vslices == null) {
-            vslices = new char[xSize * zSize][];
-            for (int x = 0 ; x < xSize ; x++) {
-                for (int z = 0 ; z < zSize ; z++) {
-                    StringBuilder vs = new StringBuilder();
-                    boolean empty = true;
-                    for (int y = 0; y < slices.length; y++) {
-                        Character c = getC(x, y, z);
-                        vs.append(c);
-                        if (c != ' ') {
-                            empty = false;
-                        }
+    private char[][] calculateVslices() {
+        char[][] vs = new char[xSize * zSize][];
+        for (int x = 0 ; x < xSize ; x++) {
+            for (int z = 0 ; z < zSize ; z++) {
+                char[] column = new char[slices.length];
+                boolean empty = true;
+                for (int y = 0; y < slices.length; y++) {
+                    char c = getC(x, y, z);
+                    column[y] = c;
+                    if (c != ' ') {
+                        empty = false;
                     }
-                    if (empty) {
-                        vslices[z*xSize+x] = null;
-                    } else {
-                        vslices[z*xSize+x] = vs.toString().toCharArray();
+                }
+                vs[z*xSize+x] = empty ? null : column;
+            }
+        }
+        return vs;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<ColumnRun>[] calculateColumnRuns(char[][] vslices) {
+        List<ColumnRun>[] runs = new List[vslices.length];
+        for (int i = 0; i < vslices.length; i++) {
+            char[] vs = vslices[i];
+            if (vs != null) {
+                List<ColumnRun> column = new ArrayList<>();
+                int start = 0;
+                while (start < vs.length) {
+                    int end = start + 1;
+                    while (end < vs.length && vs[end] == vs[start]) {
+                        end++;
                     }
+                    column.add(new ColumnRun(start, end - start, vs[start]));
+                    start = end;
                 }
+                runs[i] = List.copyOf(column);
             }
         }
+        return runs;
+    }
+
+    /**
+     * Vertical slices, organized by z*xSize+x
+     */
+    @Override
+    public char[][] getVslices() {
         return vslices;
     }
 
+    /**
+     * The vertical slice at this position as runs of identical characters (bottom to top) or null
+     * if the column is empty
+     */
+    @Override
+    public List<ColumnRun> getColumnRuns(int x, int z) {
+        return columnRuns[z*xSize + x];
+    }
+
     @Override
     public char[] getVSlice(int x, int z) {
-        return getVslices()[z*xSize + x];
+        return vslices[z*xSize + x];
     }
 
     @Override
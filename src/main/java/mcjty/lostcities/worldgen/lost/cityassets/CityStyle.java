@@ -3,6 +3,7 @@ package mcjty.lostcities.worldgen.lost.cityassets;
 import mcjty.lostcities.api.ILostCityCityStyle;
 import mcjty.lostcities.varia.ChunkCoord;
 import mcjty.lostcities.varia.Tools;
+import mcjty.lostcities.varia.WeightedTable;
 import mcjty.lostcities.worldgen.lost.regassets.CityStyleRE;
 import mcjty.lostcities.worldgen.lost.regassets.data.DataTools;
 import mcjty.lostcities.worldgen.lost.regassets.data.ObjectSelector;
@@ -29,6 +30,17 @@ public class CityStyle implements ILostCityCityStyle {
     private final List<ObjectSelector> multiBuildingSelector = new ArrayList<>();
     private StreetParts streetParts = StreetParts.DEFAULT;
 
+    // Compiled versions of the selectors above. These are calculated after inheritance is resolved
+    // and are null if the weights depend on the distance to spawn
+    private WeightedTable<ObjectSelector> buildingTable;
+    private WeightedTable<ObjectSelector> bridgeTable;
+    private WeightedTable<ObjectSelector> parkTable;
+    private WeightedTable<ObjectSelector> fountainTable;
+    private WeightedTable<ObjectSelector> stairTable;
+    private WeightedTable<ObjectSelector> frontTable;
+    private WeightedTable<ObjectSelector> railDungeonTable;
+    private WeightedTable<ObjectSelector> multiBuildingTable;
+
     // Building settings
     private Integer minFloorCount;
     private Integer minCellarCount;
@@ -414,12 +426,37 @@ public class CityStyle implements ILostCityCityStyle {
                     sphereGlassBlock = inheritFrom.sphereGlassBlock;
                 }
             }
+            buildingTable = compileSelector(buildingSelector);
+            bridgeTable = compileSelector(bridgeSelector);
+            parkTable = compileSelector(parkSelector);
+            fountainTable = compileSelector(fountainSelector);
+            stairTable = compileSelector(stairSelector);
+            frontTable = compileSelector(frontSelector);
+            railDungeonTable = compileSelector(railDungeonSelector);
+            multiBuildingTable = compileSelector(multiBuildingSelector);
+        }
+    }
+
+    private static boolean hasSpawnDistance(ObjectSelector objectSelector) {
+        return objectSelector.minSpawnDistance() > 0 || objectSelector.maxSpawnDistance() < Integer.MAX_VALUE;
+    }
+
+    private static WeightedTable<ObjectSelector> compileSelector(List<ObjectSelector> list) {
+        for (ObjectSelector objectSelector : list) {
+            if (hasSpawnDistance(objectSelector)) {
+                return null;
+            }
         }
+        return WeightedTable.of(list, ObjectSelector::factor);
     }
 
-    private static String getRandomFromList(Random random, List<ObjectSelector> list, ChunkCoord pos) {
+    private static String getRandomFromList(Random random, List<ObjectSelector> list, WeightedTable<ObjectSelector> table, ChunkCoord pos) {
+        if (table != null) {
+            ObjectSelector fromList = table.get(random);
+            return fromList == null ? null : fromList.value();
+        }
         ObjectSelector fromList = Tools.getRandomFromList(random, list, objectSelector -> {
-            if (objectSelector.minSpawnDistance() > 0 || objectSelector.maxSpawnDistance() < Integer.MAX_VALUE) {
+            if (hasSpawnDistance(objectSelector)) {
                 // Distance in objectSelector is in blocks whereas pos is in chunks
                 // Objects can only return 'factor' between minSpawnDistance and maxSpawnDistance
                 // objectSelector.feather() is used to make the transition at minSpawnDistance and maxSpawnDistance more smooth
@@ -466,35 +503,35 @@ public class CityStyle implements ILostCityCityStyle {
     }
 
     public String getRandomStair(Random random, ChunkCoord pos) {
-        return getRandomFromList(random, stairSelector, pos);
+        return getRandomFromList(random, stairSelector, stairTable, pos);
     }
 
     public String getRandomFront(Random random, ChunkCoord pos) {
-        return getRandomFromList(random, frontSelector, pos);
+        return getRandomFromList(random, frontSelector, frontTable, pos);
     }
 
     public String getRandomRailDungeon(Random random, ChunkCoord pos) {
-        return getRandomFromList(random, railDungeonSelector, pos);
+        return getRandomFromList(random, railDungeonSelector, railDungeonTable, pos);
     }
 
     public String getRandomPark(Random random, ChunkCoord pos) {
-        return getRandomFromList(random, parkSelector, pos);
+        return getRandomFromList(random, parkSelector, parkTable, pos);
     }
 
     public String getRandomBridge(Random random, ChunkCoord pos) {
-        return getRandomFromList(random, bridgeSelector, pos);
+        return getRandomFromList(random, bridgeSelector, bridgeTable, pos);
     }
 
     public String getRandomFountain(Random random, ChunkCoord pos) {
-        return getRandomFromList(random, fountainSelector, pos);
+        return getRandomFromList(random, fountainSelector, fountainTable, pos);
     }
 
     public String getRandomBuilding(Random random, ChunkCoord pos) {
-        return getRandomFromList(random, buildingSelector, pos);
+        return getRandomFromList(random, buildingSelector, buildingTable, pos);
     }
 
     public String getRandomMultiBuilding(Random random, ChunkCoord pos) {
-        return getRandomFromList(random, multiBuildingSelector, pos);
+        return getRandomFromList(random, multiBuildingSelector, multiBuildingTable, pos);
     }
 
     public boolean hasMultiBuildings() {
@@ -0,0 +1,8 @@
+package mcjty.lostcities.worldgen.lost.cityassets;
+
+/**
+ * A run of identical palette characters in a vertical column of a part. 'start' is the
+ * height relative to the bottom of the part
+ */
+public record ColumnRun(int start, int length, char c) {
+}
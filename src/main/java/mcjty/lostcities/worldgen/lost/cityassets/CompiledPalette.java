@@ -181,6 +181,13 @@ public class CompiledPalette {
         }
     }
 
+    /**
+     * True if this character selects a random block every time get() is called
+     */
+    public boolean isRandom(char c) {
+        return palette.get(c) instanceof BlockState[];
+    }
+
     public BlockState canBeDamagedToIronBars(BlockState b) {
         return damagedToBlock.get(b);
     }
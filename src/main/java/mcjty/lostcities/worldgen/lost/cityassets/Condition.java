@@ -1,32 +1,60 @@
 package mcjty.lostcities.worldgen.lost.cityassets;
 
 import mcjty.lostcities.api.ILostCityAsset;
-import mcjty.lostcities.varia.Tools;
 import mcjty.lostcities.worldgen.lost.regassets.ConditionRE;
 import mcjty.lostcities.worldgen.lost.regassets.data.ConditionPart;
 import mcjty.lostcities.worldgen.lost.regassets.data.DataTools;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.util.RandomSource;
-import org.apache.commons.lang3.tuple.Pair;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntPredicate;
 import java.util.function.Predicate;
 
+/**
+ * A weighted selection of values where every value can have a test on the context. The
+ * values are compiled into a table: the tests that pass for a context form a bitmask and
+ * for every bitmask the matching values (and their total weight) are only calculated once.
+ * Values without a test always match and don't take part in the bitmask. Conditions with too
+ * many tests for a table evaluate the tests and collect the matching values on every call
+ */
 public class Condition implements ILostCityAsset {
 
+    // The table has 2^n entries for n tests. With more tests the candidates are calculated every time
+    private static final int MAX_TABLE_TESTS = 12;
+
     private final ResourceLocation name;
 
-    private final List<Pair<Predicate<ConditionContext>, Pair<Float, String>>> valueSelector = new ArrayList<>();
+    private final String[] values;
+    private final float[] factors;
+    // For every value the index of its test or -1 if the value has no test
+    private final int[] testIndex;
+    private final List<Predicate<ConditionContext>> tests = new ArrayList<>();
+    private final AtomicReferenceArray<Candidates> table;
+
+    private record Candidates(String[] values, float[] factors, float totalWeight) {
+    }
 
     public Condition(ConditionRE object) {
         name = object.getRegistryName();
-        for (ConditionPart cp : object.getValues()) {
-            float factor = cp.getFactor();
-            String value = cp.getValue();
-            Predicate<ConditionContext> test = ConditionContext.parseTest(cp);
-            valueSelector.add(Pair.of(test, Pair.of(factor, value)));
+        List<ConditionPart> parts = object.getValues();
+        values = new String[parts.size()];
+        factors = new float[parts.size()];
+        testIndex = new int[parts.size()];
+        for (int i = 0; i < parts.size(); i++) {
+            ConditionPart cp = parts.get(i);
+            values[i] = cp.getValue();
+            factors[i] = cp.getFactor();
+            if (ConditionContext.hasTest(cp)) {
+                testIndex[i] = tests.size();
+                tests.add(ConditionContext.parseTest(cp));
+            } else {
+                testIndex[i] = -1;
+            }
         }
+        table = tests.size() <= MAX_TABLE_TESTS ? new AtomicReferenceArray<>(1 << tests.size()) : null;
     }
 
     @Override
@@ -39,21 +67,71 @@ public class Condition implements ILostCityAsset {
         return name;
     }
 
-    public String getRandomValue(RandomSource random, ConditionContext info) {
-        List<Pair<Float, String>> values = new ArrayList<>();
-        for (Pair<Predicate<ConditionContext>, Pair<Float, String>> pair : valueSelector) {
-            if (pair.getLeft().test(info)) {
-                values.add(pair.getRight());
+    /**
+     * Collect the values that have no test or for which the given test index passes
+     */
+    private Candidates calculateCandidates(IntPredicate passed) {
+        int count = 0;
+        for (int idx : testIndex) {
+            if (idx == -1 || passed.test(idx)) {
+                count++;
             }
         }
-        if (values.isEmpty()) {
-            return null;
+        String[] v = new String[count];
+        float[] f = new float[count];
+        float totalWeight = 0;
+        count = 0;
+        for (int i = 0; i < values.length; i++) {
+            int idx = testIndex[i];
+            if (idx == -1 || passed.test(idx)) {
+                v[count] = values[i];
+                f[count] = factors[i];
+                totalWeight += factors[i];
+                count++;
+            }
         }
-        Pair<Float, String> randomFromList = Tools.getRandomFromList(random, values, Pair::getLeft);
-        if (randomFromList == null) {
+        return new Candidates(v, f, totalWeight);
+    }
+
+    private Candidates getCandidates(ConditionContext info) {
+        if (table == null) {
+            // Too many tests to fit in a mask
+            boolean[] passed = new boolean[tests.size()];
+            for (int i = 0; i < tests.size(); i++) {
+                passed[i] = tests.get(i).test(info);
+            }
+            return calculateCandidates(idx -> passed[idx]);
+        }
+        int mask = 0;
+        for (int i = 0; i < tests.size(); i++) {
+            if (tests.get(i).test(info)) {
+                mask |= 1 << i;
+            }
+        }
+        Candidates candidates = table.get(mask);
+        if (candidates == null) {
+            int m = mask;
+            candidates = calculateCandidates(idx -> (m & (1 << idx)) != 0);
+            table.set(mask, candidates);
+        }
+        return candidates;
+    }
+
+    public String getRandomValue(RandomSource random, ConditionContext info) {
+        Candidates candidates = getCandidates(info);
+        String[] v = candidates.values();
+        if (v.length == 0) {
             return null;
-        } else {
-            return randomFromList.getRight();
         }
+        // Same selection as Tools.getRandomFromList()
+        float[] f = candidates.factors();
+        float r = random.nextFloat() * candidates.totalWeight();
+        for (int i = 0; i < v.length; i++) {
+            r -= f[i];
+            if (r <= 0) {
+                return v[i];
+            }
+        }
+        return v[v.length - 1];
     }
 }
@@ -38,6 +38,17 @@ public abstract class ConditionContext {
         return levelInfo -> orig.test(levelInfo) && newTest.test(levelInfo);
     }
 
+    /**
+     * True if this element actually tests something. Otherwise parseTest() gives a test that always passes
+     */
+    public static boolean hasTest(ConditionTest element) {
+        return element.getTop() != null || element.getGround() != null || element.getIsbuilding() != null
+                || element.getIssphere() != null || element.getChunkx() != null || element.getChunkz() != null
+                || element.getBelowPart() != null || element.getInpart() != null || element.getInbuilding() != null
+                || element.getInbiome() != null || element.getCellar() != null || element.getFloor() != null
+                || element.getRange() != null;
+    }
+
     public static Predicate<ConditionContext> parseTest(ConditionTest element) {
         Predicate<ConditionContext> test = null;
         if (element.getTop() != null) {
@@ -2,6 +2,8 @@ package mcjty.lostcities.worldgen.lost.cityassets;
 
 import net.minecraft.world.level.CommonLevelAccessor;
 
+import java.util.List;
+
 public interface IBuildingPart {
     Character getMetaChar(String key);
 
@@ -19,6 +21,8 @@ public interface IBuildingPart {
 
     char[] getVSlice(int x, int z);
 
+    List<ColumnRun> getColumnRuns(int x, int z);
+
     Palette getLocalPalette(CommonLevelAccessor level);
 
     int getSliceCount();
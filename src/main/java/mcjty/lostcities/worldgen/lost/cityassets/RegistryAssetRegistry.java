@@ -12,13 +12,20 @@ import net.minecraft.world.level.CommonLevelAccessor;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 
 public class RegistryAssetRegistry<T extends ILostCityAsset, R> implements ILostCityAssetRegistry<T>  {
 
-    private final Map<ResourceLocation, T> assets = new HashMap<>();
+    private volatile Map<ResourceLocation, T> assets = new ConcurrentHashMap<>();
+    // A new set of assets that is being built by stage(). Only the thread that builds it can see
+    // it (so that inheritance resolves against the new assets). Everyone else keeps using the
+    // current assets until commit() swaps them in
+    private Map<ResourceLocation, T> staged = null;
+    private Thread stagingThread = null;
     private final ResourceKey<Registry<R>> registryKey;
     private final Function<R, T> assetConstructor;
 
@@ -69,46 +76,110 @@ public class RegistryAssetRegistry<T extends ILostCityAsset, R> implements ILost
         if (name == null) {
             return null;
         }
-        T t = assets.get(name);
-        if (t == null) {
-            try {
-                Registry<R> registry = level.registryAccess().registryOrThrow(registryKey);
-                R value = registry.get(ResourceKey.create(registryKey, name));
-                if (value instanceof IAsset asset) {
-                    asset.setRegistryName(name);
-                }
-                t = assetConstructor.apply(value);
-            } catch (Exception e) {
-                throw new RuntimeException("Error getting resource " + name + "!", e);
+        boolean loading = stagingThread == Thread.currentThread();
+        Map<ResourceLocation, T> map = loading ? staged : assets;
+        T t = map.get(name);
+        if (t != null) {
+            // While loading an asset can be looked up (e.g. as a parent to inherit from) before its own
+            // turn to be initialized. init() is idempotent so this resolves the assets depth first.
+            // Assets that are committed are always initialized already
+            if (loading) {
+                t.init(level);
             }
-            assets.put(name, t);
+            return t;
         }
-        if (t != null) {
-            t.init(level);
+        try {
+            Registry<R> registry = level.registryAccess().registryOrThrow(registryKey);
+            R value = registry.get(ResourceKey.create(registryKey, name));
+            if (value instanceof IAsset asset) {
+                asset.setRegistryName(name);
+            }
+            t = assetConstructor.apply(value);
+        } catch (Exception e) {
+            throw new RuntimeException("Error getting resource " + name + "!", e);
+        }
+        if (t == null) {
+            return null;
         }
-        return t;
+        // Assets that are not in the registry yet are initialized before they are published. Worldgen
+        // threads read this map concurrently so an asset that is created by two threads at the same
+        // time is only published once
+        t.init(level);
+        T existing = map.putIfAbsent(name, t);
+        return existing != null ? existing : t;
     }
 
+    /**
+     * Create and initialize all assets of the registry. If this is not part of a staged load the
+     * assets are built next to the current ones and published together when they are complete
+     */
     public void loadAll(CommonLevelAccessor level) {
         if (level == null) {
             return;
         }
+        boolean ownStage = stagingThread != Thread.currentThread();
+        if (ownStage) {
+            stage();
+            staged.putAll(assets);
+        }
+        Map<ResourceLocation, T> map = staged;
         Registry<R> registry = level.registryAccess().registryOrThrow(registryKey);
+        List<T> created = new ArrayList<>();
         for (R r : registry) {
             ResourceLocation name = registry.getKey(r);
-            if (!assets.containsKey(name)) {
+            if (!map.containsKey(name)) {
                 if (r instanceof IAsset asset) {
                     asset.setRegistryName(name);
                 }
                 T t = assetConstructor.apply(r);
-                assets.put(name, t);
+                map.put(name, t);
+                created.add(t);
             }
         }
+        // Only init after everything is created so that inheritance can find all assets. Parents are
+        // initialized on demand by get() so the order here doesn't matter
+        for (T t : created) {
+            t.init(level);
+        }
+        if (ownStage) {
+            commit();
+        }
+    }
+
+    private Map<ResourceLocation, T> current() {
+        return stagingThread == Thread.currentThread() ? staged : assets;
+    }
+
+    /**
+     * Start building a new set of assets. After this loadAll() and get() on this thread work on the
+     * new set while other threads still see the current one
+     */
+    public void stage() {
+        staged = new ConcurrentHashMap<>();
+        stagingThread = Thread.currentThread();
+    }
+
+    /**
+     * Make the staged assets visible to everyone
+     */
+    public void commit() {
+        if (staged != null) {
+            assets = staged;
+        }
+        abort();
+    }
+
+    /**
+     * Throw away the staged assets and keep the current ones
+     */
+    public void abort() {
+        staged = null;
+        stagingThread = null;
     }
 
     @Override
     public Iterable<T> getIterable() {
-        return assets.values();
+        return current().values();
     }
 
     public int getNumAssets(CommonLevelAccessor level) {
@@ -116,6 +187,6 @@ public class RegistryAssetRegistry<T extends ILostCityAsset, R> implements ILost
     }
 
     public void reset() {
-        assets.clear();
+        assets = new ConcurrentHashMap<>();
     }
 }
@@ -2,7 +2,7 @@ package mcjty.lostcities.worldgen.lost.cityassets;
 
 import mcjty.lostcities.api.ILostCityAsset;
 import mcjty.lostcities.varia.ChunkCoord;
-import mcjty.lostcities.varia.Tools;
+import mcjty.lostcities.varia.WeightedTable;
 import mcjty.lostcities.worldgen.IDimensionInfo;
 import mcjty.lostcities.worldgen.lost.BiomeInfo;
 import mcjty.lostcities.worldgen.lost.regassets.WorldStyleRE;
@@ -16,7 +16,9 @@ import org.jetbrains.annotations.Nullable;
 import javax.annotation.Nonnull;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Predicate;
 
 public class WorldStyle implements ILostCityAsset {
@@ -32,6 +34,11 @@ public class WorldStyle implements ILostCityAsset {
     @Nonnull private final MultiSettings multiSettings;
     @Nonnull private final WorldSettings worldSettings;
 
+    // The city style selection and city chance multiplier for a biome. Calculated the first time a biome is seen
+    private record BiomeSelection(WeightedTable<Pair<Float, String>> cityStyles, float cityChanceMultiplier) {
+    }
+    private final Map<Holder<Biome>, BiomeSelection> biomeSelections = new ConcurrentHashMap<>();
+
     public WorldStyle(WorldStyleRE object) {
         name = object.getRegistryName();
         this.citysphereSettings = object.getCitysphereSettings();
@@ -92,26 +99,35 @@ public class WorldStyle implements ILostCityAsset {
         return worldSettings;
     }
 
-    public float getCityChanceMultiplier(IDimensionInfo provider, ChunkCoord coord) {
+    private BiomeSelection getBiomeSelection(IDimensionInfo provider, ChunkCoord coord) {
         Holder<Biome> biome = BiomeInfo.getBiomeInfo(provider, coord).getMainBiome();
-        for (Pair<Predicate<Holder<Biome>>, Float> pair : cityBiomeMultiplier) {
-            if (pair.getLeft().test(biome)) {
-                return pair.getRight();
+        BiomeSelection selection = biomeSelections.get(biome);
+        if (selection == null) {
+            List<Pair<Float, String>> ct = new ArrayList<>();
+            for (Pair<Predicate<Holder<Biome>>, Pair<Float, String>> pair : cityStyleSelector) {
+                if (pair.getKey().test(biome)) {
+                    ct.add(pair.getValue());
+                }
             }
+            float multiplier = 1.0f;
+            for (Pair<Predicate<Holder<Biome>>, Float> pair : cityBiomeMultiplier) {
+                if (pair.getLeft().test(biome)) {
+                    multiplier = pair.getRight();
+                    break;
+                }
+            }
+            selection = new BiomeSelection(WeightedTable.of(ct, Pair::getLeft), multiplier);
+            biomeSelections.put(biome, selection);
         }
-        return 1.0f;
+        return selection;
     }
 
-    public String getRandomCityStyle(IDimensionInfo provider, ChunkCoord coord, Random random) {
-        Holder<Biome> biome = BiomeInfo.getBiomeInfo(provider, coord).getMainBiome();
-        List<Pair<Float, String>> ct = new ArrayList<>();
-        for (Pair<Predicate<Holder<Biome>>, Pair<Float, String>> pair : cityStyleSelector) {
-            if (pair.getKey().test(biome)) {
-                ct.add(pair.getValue());
-            }
-        }
+    public float getCityChanceMultiplier(IDimensionInfo provider, ChunkCoord coord) {
+        return getBiomeSelection(provider, coord).cityChanceMultiplier();
+    }
 
-        Pair<Float, String> randomFromList = Tools.getRandomFromList(random, ct, Pair::getLeft);
+    public String getRandomCityStyle(IDimensionInfo provider, ChunkCoord coord, Random random) {
+        Pair<Float, String> randomFromList = getBiomeSelection(provider, coord).cityStyles().get(random);
         if (randomFromList == null) {
             return null;
         } else {